@@ -0,0 +1,69 @@
+/*
+ *  Dynamic Surroundings: Environs
+ *  Copyright (C) 2020  OreCruncher
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>
+ */
+
+
+package org.orecruncher.environs.fog;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+import org.orecruncher.environs.scanner.BiomeGrid;
+import org.orecruncher.environs.scanner.SyntheticWorld;
+import org.orecruncher.lib.gui.Color;
+
+/**
+ * Measures the biome fog calculators working out their result from the biome grid of a synthetic world.  The
+ * parts of calculate() that need a client (player, world, render event) are left out; the cache is bypassed
+ * so each call does the full aggregation over the window.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class FogCalculatorBenchmark {
+
+	@Param({"0", "0.5"})
+	public float rain;
+
+	private BiomeFogColorCalculator color;
+	private BiomeFogRangeCalculator range;
+
+	@Setup
+	public void setup() {
+		BiomeGrid.INSTANCE.reset();
+		this.color = new BiomeFogColorCalculator();
+		this.range = new BiomeFogRangeCalculator();
+		// Fog color at the max render distance
+		this.color.window.setRadius(BiomeGrid.RANGE);
+		BiomeGrid.INSTANCE.tick(new SyntheticWorld(0x5EED), 0, 0, 0);
+	}
+
+	@TearDown
+	public void tearDown() {
+		BiomeGrid.INSTANCE.reset();
+	}
+
+	@Benchmark
+	public Color fogColor() {
+		return this.color.blend();
+	}
+
+	@Benchmark
+	public FogResult fogRange() {
+		return this.range.calculate(0, 256F, this.rain);
+	}
+}
@@ -0,0 +1,68 @@
+/*
+ *  Dynamic Surroundings: Environs
+ *  Copyright (C) 2020  OreCruncher
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>
+ */
+
+
+package org.orecruncher.environs.handlers.scripts;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+import org.orecruncher.environs.scanner.SyntheticWorld;
+
+/**
+ * Measures evaluating the conditions attached to sounds and effects.  There is no player so the variables
+ * hold their defaults; what is measured is the cost of getting an answer, with and without the per tick update.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ConditionBenchmark {
+
+	@Param({
+			"",
+			"state.isInside()",
+			"!state.isInside() && !state.isUnderground()",
+			"weather.isRaining() && diurnal.isNight() && state.getCurrentTemperature() < 0.2"
+	})
+	public String condition;
+
+	private int id;
+
+	@Setup
+	public void setup() {
+		SyntheticWorld.bootstrap();
+		this.id = ConditionEvaluator.INSTANCE.register(this.condition);
+	}
+
+	/**
+	 * A check between ticks, which is answered from the cached result.
+	 */
+	@Benchmark
+	public boolean check() {
+		return ConditionEvaluator.INSTANCE.check(this.condition);
+	}
+
+	/**
+	 * The per tick variable update and sampling followed by a check, which is what a client tick pays.
+	 */
+	@Benchmark
+	public boolean tick() {
+		ConditionEvaluator.INSTANCE.tick();
+		return ConditionEvaluator.INSTANCE.check(this.id);
+	}
+}
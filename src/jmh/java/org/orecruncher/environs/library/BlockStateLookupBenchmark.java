@@ -0,0 +1,100 @@
+/*
+ *  Dynamic Surroundings: Environs
+ *  Copyright (C) 2020  OreCruncher
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>
+ */
+
+
+package org.orecruncher.environs.library;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import net.minecraft.block.Block;
+import net.minecraft.block.BlockState;
+import net.minecraft.util.registry.Registry;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.orecruncher.environs.scanner.SyntheticWorld;
+import org.orecruncher.lib.reflection.ObjectField;
+
+/**
+ * Compares looking up block state data through the state id table against the field the coremod injects
+ * into BlockState.  The coremod does not run here so the field is simulated by a holder with the same
+ * declaration.  Each invocation looks up a batch of states picked at random from the registry.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class BlockStateLookupBenchmark {
+
+	private static final int BATCH = 1024;
+
+	// Same shape as the field blockstate.js adds to BlockState
+	public static final class Holder {
+		public Object environs_blockData;
+	}
+
+	private static final ObjectField<Holder, BlockStateData> FIELD =
+			new ObjectField<>(Holder.class, () -> BlockStateData.DEFAULT, "environs_blockData");
+
+	private final BlockState[] states = new BlockState[BATCH];
+	private final Holder[] holders = new Holder[BATCH];
+
+	@Setup
+	public void setup() {
+		SyntheticWorld.bootstrap();
+
+		final List<BlockState> all = new ArrayList<>();
+		for (final Block block : Registry.BLOCK)
+			all.addAll(block.getStateContainer().getValidStates());
+		BlockStateUtil.buildTable(all, state -> BlockStateData.DEFAULT);
+
+		final Random random = new Random(0x5EED);
+		for (int i = 0; i < BATCH; i++) {
+			this.states[i] = all.get(random.nextInt(all.size()));
+			this.holders[i] = new Holder();
+			FIELD.set(this.holders[i], BlockStateUtil.getData(this.states[i]));
+		}
+	}
+
+	@TearDown
+	public void tearDown() {
+		BlockStateUtil.clearTable();
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(BATCH)
+	public void injectedField(final Blackhole bh) {
+		for (final Holder holder : this.holders)
+			bh.consume(FIELD.get(holder));
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(BATCH)
+	public void stateIdTable(final Blackhole bh) {
+		for (final BlockState state : this.states)
+			bh.consume(BlockStateUtil.getData(state));
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(BATCH)
+	public void stateIdOnly(final Blackhole bh) {
+		for (final BlockState state : this.states)
+			bh.consume(Block.getStateId(state));
+	}
+}
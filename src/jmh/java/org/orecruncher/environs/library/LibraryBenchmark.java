@@ -0,0 +1,73 @@
+/*
+ *  Dynamic Surroundings: Environs
+ *  Copyright (C) 2020  OreCruncher
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>
+ */
+
+
+package org.orecruncher.environs.library;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import net.minecraft.world.biome.Biomes;
+import org.openjdk.jmh.annotations.*;
+import org.orecruncher.environs.scanner.SyntheticWorld;
+import org.orecruncher.lib.random.XorShiftRandom;
+import org.orecruncher.sndctrl.api.acoustics.IAcoustic;
+
+/**
+ * Measures picking the sounds to play for a block and a biome.  The chances are set so that a sound is
+ * selected every call.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class LibraryBenchmark {
+
+	@Param({ "1", "4" })
+	public int sounds;
+
+	private final Random random = new XorShiftRandom();
+	private BlockStateData blockData;
+	private BiomeInfo biomeInfo;
+
+	@Setup
+	public void setup() {
+		SyntheticWorld.bootstrap();
+
+		this.blockData = new BlockStateData();
+		this.blockData.setChance(1);
+		this.biomeInfo = new BiomeInfo(new BiomeAdapter(Biomes.PLAINS));
+		this.biomeInfo.spotSoundChance = 1;
+
+		for (int i = 0; i < this.sounds; i++) {
+			final IAcoustic acoustic = NullAcoustic.create("sound" + i);
+			this.blockData.addSound(new WeightedAcousticEntry(acoustic, null, 10 + i));
+			this.biomeInfo.spotSounds.add(new WeightedAcousticEntry(acoustic, null, 10 + i));
+		}
+		this.blockData.trim();
+	}
+
+	@Benchmark
+	public IAcoustic blockStateSoundToPlay() {
+		return this.blockData.getSoundToPlay(this.random);
+	}
+
+	@Benchmark
+	public IAcoustic biomeSpotSound() {
+		return this.biomeInfo.getSpotSound(this.random);
+	}
+}
@@ -0,0 +1,55 @@
+/*
+ *  Dynamic Surroundings: Environs
+ *  Copyright (C) 2020  OreCruncher
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>
+ */
+
+
+package org.orecruncher.environs.library;
+
+import java.lang.reflect.Proxy;
+
+import javax.annotation.Nonnull;
+
+import org.orecruncher.sndctrl.api.acoustics.IAcoustic;
+
+/**
+ * Acoustics for benchmarks.  They are never played so every call other than the Object methods does nothing.
+ */
+public final class NullAcoustic {
+
+	private NullAcoustic() {
+
+	}
+
+	@Nonnull
+	public static IAcoustic create(@Nonnull final String name) {
+		return (IAcoustic) Proxy.newProxyInstance(
+				IAcoustic.class.getClassLoader(),
+				new Class<?>[] { IAcoustic.class },
+				(proxy, method, args) -> {
+					switch (method.getName()) {
+						case "toString":
+							return name;
+						case "hashCode":
+							return System.identityHashCode(proxy);
+						case "equals":
+							return proxy == args[0];
+						default:
+							return null;
+					}
+				});
+	}
+}
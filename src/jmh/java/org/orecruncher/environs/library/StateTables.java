@@ -0,0 +1,55 @@
+/*
+ *  Dynamic Surroundings: Environs
+ *  Copyright (C) 2020  OreCruncher
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>
+ */
+
+
+package org.orecruncher.environs.library;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import javax.annotation.Nonnull;
+
+import net.minecraft.block.Block;
+import net.minecraft.block.BlockState;
+import net.minecraft.util.registry.Registry;
+
+/**
+ * Assigns block state data for benchmarks.  The coremod does not run here so the field BlockStateUtil falls
+ * back to does not exist; the data is placed in the state id table instead and never goes through the field.
+ */
+public final class StateTables {
+
+	private StateTables() {
+
+	}
+
+	/**
+	 * Builds the state id table for every registered block state.  States not in the map get the default.
+	 */
+	public static void assign(@Nonnull final Map<BlockState, BlockStateData> data) {
+		final List<BlockState> all = new ArrayList<>();
+		for (final Block block : Registry.BLOCK)
+			all.addAll(block.getStateContainer().getValidStates());
+		BlockStateUtil.buildTable(all, state -> data.getOrDefault(state, BlockStateData.DEFAULT));
+	}
+
+	public static void clear() {
+		BlockStateUtil.clearTable();
+	}
+}
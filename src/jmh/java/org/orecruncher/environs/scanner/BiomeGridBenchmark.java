@@ -0,0 +1,72 @@
+/*
+ *  Dynamic Surroundings: Environs
+ *  Copyright (C) 2020  OreCruncher
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>
+ */
+
+
+package org.orecruncher.environs.scanner;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Measures the biome grid that backs the fog calculators and biome sounds.  The windows are the ones the
+ * consumers create: biome sounds, fog range, and fog color at the max render distance.  The fog calculators
+ * that read the windows are measured by FogCalculatorBenchmark.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class BiomeGridBenchmark {
+
+	private SyntheticWorld world;
+	private BiomeGrid.Window fogColor;
+	private int x;
+	private int step = 1;
+	private int dimension;
+
+	@Setup
+	public void setup() {
+		this.world = new SyntheticWorld(0x5EED);
+		BiomeGrid.INSTANCE.reset();
+		BiomeGrid.INSTANCE.createWindow(18);
+		BiomeGrid.INSTANCE.createWindow(20);
+		this.fogColor = BiomeGrid.INSTANCE.createWindow(BiomeGrid.RANGE);
+		BiomeGrid.INSTANCE.tick(this.world, this.dimension, this.x, 0);
+	}
+
+	@TearDown
+	public void tearDown() {
+		BiomeGrid.INSTANCE.reset();
+	}
+
+	@Benchmark
+	public int moveOneBlock() {
+		if (Math.abs(this.x + this.step) > 256)
+			this.step = -this.step;
+		this.x += this.step;
+		BiomeGrid.INSTANCE.tick(this.world, this.dimension, this.x, 0);
+		return this.fogColor.getVersion();
+	}
+
+	@Benchmark
+	public int rebuild() {
+		// A dimension change forces the grid to resample everything
+		BiomeGrid.INSTANCE.tick(this.world, ++this.dimension, this.x, 0);
+		return this.fogColor.getVersion();
+	}
+}
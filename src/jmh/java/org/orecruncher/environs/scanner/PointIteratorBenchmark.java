@@ -0,0 +1,72 @@
+/*
+ *  Dynamic Surroundings: Environs
+ *  Copyright (C) 2020  OreCruncher
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>
+ */
+
+
+package org.orecruncher.environs.scanner;
+
+import java.util.concurrent.TimeUnit;
+
+import net.minecraft.util.math.BlockPos;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.orecruncher.lib.BlockPosUtil;
+
+/**
+ * Compares walking a cuboid with getAllInBoxMutable() against the primitive point iterators, for the
+ * 33x33x33 and 65x65x65 cuboids the scanners work with.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class PointIteratorBenchmark {
+
+	@Param({ "16", "32" })
+	public int range;
+
+	private BlockPos min;
+	private BlockPos max;
+
+	private final CuboidPointIterator cuboid = new CuboidPointIterator();
+	private final SectionPointIterator section = new SectionPointIterator(s -> true);
+
+	@Setup
+	public void setup() {
+		this.min = new BlockPos(-this.range, 64 - this.range, -this.range);
+		this.max = new BlockPos(this.range, 64 + this.range, this.range);
+	}
+
+	@Benchmark
+	public void getAllInBoxMutable(final Blackhole bh) {
+		for (final BlockPos pos : BlockPosUtil.getAllInBoxMutable(this.min, this.max))
+			bh.consume(pos.toLong());
+	}
+
+	@Benchmark
+	public void cuboidPointIterator(final Blackhole bh) {
+		final IPointIterator itr = this.cuboid.reset(this.min.getX(), this.min.getY(), this.min.getZ(), this.max.getX(), this.max.getY(), this.max.getZ());
+		for (BlockPos pos = itr.next(); pos != null; pos = itr.next())
+			bh.consume(pos.toLong());
+	}
+
+	@Benchmark
+	public void sectionPointIterator(final Blackhole bh) {
+		final IPointIterator itr = this.section.reset(this.min.getX(), this.min.getY(), this.min.getZ(), this.max.getX(), this.max.getY(), this.max.getZ());
+		for (BlockPos pos = itr.next(); pos != null; pos = itr.next())
+			bh.consume(pos.toLong());
+	}
+}
@@ -0,0 +1,161 @@
+/*
+ *  Dynamic Surroundings: Environs
+ *  Copyright (C) 2020  OreCruncher
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>
+ */
+
+
+package org.orecruncher.environs.scanner;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.Nonnull;
+
+import net.minecraft.block.BlockState;
+import net.minecraft.util.math.BlockPos;
+import org.openjdk.jmh.annotations.*;
+import org.orecruncher.environs.Environs;
+import org.orecruncher.environs.library.BlockStateData;
+import org.orecruncher.environs.library.NullAcoustic;
+import org.orecruncher.environs.library.StateTables;
+import org.orecruncher.environs.library.WeightedAcousticEntry;
+
+/**
+ * Measures the scanners against the synthetic world.  A full scan starts from nothing and runs until the
+ * cuboid is covered.  A delta scan moves the player a block and runs until the new area is covered.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ScannerBenchmark {
+
+	// Guards against a scanner that never reports finishing
+	private static final int MAX_TICKS = 10000;
+
+	@Param({ "16", "32" })
+	public int range;
+
+	private SyntheticWorld world;
+	private BlockPos center;
+	private int reference;
+	private int step = 1;
+
+	private CountingCuboidScanner cuboid;
+	private CountingRandomScanner random;
+
+	@Setup
+	public void setup() {
+		this.world = new SyntheticWorld(0x5EED);
+		this.center = new BlockPos(0, SyntheticWorld.SURFACE + 1, 0);
+
+		// Torches are the only blocks with something to do so the random scanner has work
+		final BlockStateData torch = new BlockStateData();
+		torch.addSound(new WeightedAcousticEntry(NullAcoustic.create("torch"), null, 1));
+		torch.trim();
+		final Map<BlockState, BlockStateData> data = new HashMap<>();
+		for (final BlockState state : SyntheticWorld.getPalette())
+			data.put(state, BlockStateData.DEFAULT);
+		data.put(SyntheticWorld.getPalette()[5], torch);
+		StateTables.assign(data);
+
+		final ScanContext context = new ScanContext(
+				() -> this.world,
+				() -> this.center,
+				() -> Environs.LOGGER,
+				() -> this.reference,
+				() -> null
+		);
+
+		this.cuboid = new CountingCuboidScanner(context, this.range);
+		this.random = new CountingRandomScanner(context, this.range);
+
+		runToFinish();
+	}
+
+	@TearDown
+	public void tearDown() {
+		StateTables.clear();
+	}
+
+	private int runToFinish() {
+		int ticks = 0;
+		do {
+			this.cuboid.tick();
+		} while (!this.cuboid.isScanFinished() && ++ticks < MAX_TICKS);
+		return this.cuboid.found;
+	}
+
+	@Benchmark
+	public int cuboidFullScan() {
+		this.reference++;
+		return runToFinish();
+	}
+
+	@Benchmark
+	public int cuboidDeltaScan() {
+		// Walk back and forth so the scan area stays over the same terrain
+		if (Math.abs(this.center.getX() + this.step) > 64)
+			this.step = -this.step;
+		this.center = this.center.add(this.step, 0, 0);
+		return runToFinish();
+	}
+
+	@Benchmark
+	public int randomScannerTick() {
+		this.random.tick();
+		return this.random.found;
+	}
+
+	private static final class CountingCuboidScanner extends CuboidScanner {
+
+		int found;
+
+		CountingCuboidScanner(@Nonnull final ScanContext locus, final int range) {
+			super(locus, "Benchmark", range, 0);
+		}
+
+		@Override
+		public boolean doBlockUnscan() {
+			return true;
+		}
+
+		@Override
+		public void blockScan(@Nonnull final BlockState state, @Nonnull final BlockPos pos, @Nonnull final Random rand) {
+			this.found++;
+		}
+
+		@Override
+		public void blockUnscan(final BlockState state, final BlockPos pos, final Random rand) {
+			this.found--;
+		}
+	}
+
+	private static final class CountingRandomScanner extends RandomBlockEffectScanner {
+
+		int found;
+
+		CountingRandomScanner(@Nonnull final ScanContext locus, final int range) {
+			super(locus, range);
+		}
+
+		@Override
+		public void blockScan(@Nonnull final BlockState state, @Nonnull final BlockPos pos, @Nonnull final Random rand) {
+			this.found++;
+		}
+	}
+}
@@ -0,0 +1,151 @@
+/*
+ *  Dynamic Surroundings: Environs
+ *  Copyright (C) 2020  OreCruncher
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>
+ */
+
+
+package org.orecruncher.environs.scanner;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import net.minecraft.block.BlockState;
+import net.minecraft.block.Blocks;
+import net.minecraft.fluid.IFluidState;
+import net.minecraft.tileentity.TileEntity;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.registry.Bootstrap;
+import net.minecraft.world.IEnviromentBlockReader;
+import net.minecraft.world.LightType;
+import net.minecraft.world.biome.Biome;
+import net.minecraft.world.biome.Biomes;
+
+/**
+ * Deterministic world for benchmarks so they can run without a Minecraft client.  Terrain is stone up to
+ * Y 59, dirt to 62 and grass at 63, with air above.  A hash of the position sprinkles torches on the surface
+ * and ores, water and lava underground.  Biomes are laid out in 32x32 patches.
+ */
+public final class SyntheticWorld implements IEnviromentBlockReader {
+
+	public static final int SURFACE = 63;
+
+	private static BlockState[] palette;
+	private static Biome[] biomes;
+
+	private final long seed;
+
+	public SyntheticWorld(final long seed) {
+		bootstrap();
+		this.seed = seed;
+	}
+
+	/**
+	 * Registers the vanilla blocks and biomes.  Needs to be called before touching any game objects.
+	 */
+	public static synchronized void bootstrap() {
+		if (palette == null) {
+			Bootstrap.register();
+			palette = new BlockState[] {
+					Blocks.AIR.getDefaultState(),
+					Blocks.CAVE_AIR.getDefaultState(),
+					Blocks.STONE.getDefaultState(),
+					Blocks.DIRT.getDefaultState(),
+					Blocks.GRASS_BLOCK.getDefaultState(),
+					Blocks.TORCH.getDefaultState(),
+					Blocks.COAL_ORE.getDefaultState(),
+					Blocks.WATER.getDefaultState(),
+					Blocks.LAVA.getDefaultState()
+			};
+			biomes = new Biome[] {
+					Biomes.PLAINS,
+					Biomes.FOREST,
+					Biomes.DESERT,
+					Biomes.SWAMP,
+					Biomes.TAIGA
+			};
+		}
+	}
+
+	/**
+	 * The block states the world is built from.
+	 */
+	@Nonnull
+	public static BlockState[] getPalette() {
+		bootstrap();
+		return palette.clone();
+	}
+
+	private int hash(final int x, final int y, final int z) {
+		long h = this.seed ^ (x * 0x9E3779B97F4A7C15L) ^ (y * 0xC2B2AE3D27D4EB4FL) ^ (z * 0x165667B19E3779F9L);
+		h ^= h >>> 33;
+		h *= 0xFF51AFD7ED558CCDL;
+		h ^= h >>> 33;
+		return (int) h & 0x7FFFFFFF;
+	}
+
+	@Nonnull
+	public BlockState getBlockState(final int x, final int y, final int z) {
+		if (y < 0 || y > 255)
+			return palette[0];
+		if (y > SURFACE + 1)
+			return palette[0];
+		final int h = hash(x, y, z) % 1000;
+		if (y == SURFACE + 1)
+			return h < 5 ? palette[5] : palette[0];
+		if (y == SURFACE)
+			return palette[4];
+		if (y > SURFACE - 4)
+			return palette[3];
+		if (h < 10)
+			return palette[6];
+		if (h < 12)
+			return palette[7];
+		if (h < 13)
+			return palette[8];
+		if (h < 40)
+			return palette[1];
+		return palette[2];
+	}
+
+	@Override
+	@Nonnull
+	public BlockState getBlockState(@Nonnull final BlockPos pos) {
+		return getBlockState(pos.getX(), pos.getY(), pos.getZ());
+	}
+
+	@Override
+	@Nonnull
+	public IFluidState getFluidState(@Nonnull final BlockPos pos) {
+		return getBlockState(pos).getFluidState();
+	}
+
+	@Override
+	@Nullable
+	public TileEntity getTileEntity(@Nonnull final BlockPos pos) {
+		return null;
+	}
+
+	@Override
+	@Nonnull
+	public Biome getBiome(@Nonnull final BlockPos pos) {
+		return biomes[hash(pos.getX() >> 5, 0, pos.getZ() >> 5) % biomes.length];
+	}
+
+	@Override
+	public int getLightFor(@Nonnull final LightType type, @Nonnull final BlockPos pos) {
+		return pos.getY() > SURFACE ? type.defaultLightValue : 0;
+	}
+}
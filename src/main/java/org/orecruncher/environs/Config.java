@@ -201,6 +201,10 @@ public final class Config {
             private final BooleanValue enableFountainJets;
             private final BooleanValue enableWaterSplashJets;
             private final BooleanValue disableUnderwaterParticles;
+            private final BooleanValue enableAsyncScanning;
+            private final BooleanValue enableImportanceSampling;
+            private final IntValue scanBudgetFloor;
+            private final IntValue scanBudgetCeiling;
 
             private boolean _enableFireFlies;
             private boolean _enableSteamJets;
@@ -210,6 +214,10 @@ public final class Config {
             private boolean _enableFountainJets;
             private boolean _enableWaterSplashJets;
             private boolean _disableUnderwaterParticles;
+            private boolean _enableAsyncScanning;
+            private boolean _enableImportanceSampling;
+            private float _scanBudgetFloor;
+            private float _scanBudgetCeiling;
 
             Effects(@Nonnull final ForgeConfigSpec.Builder builder) {
                 builder.comment("Options for controlling various effects")
@@ -263,6 +271,28 @@ public final class Config {
                         .translation("environs.cfg.effects.Underwater")
                         .define("Disable Underwater Particles", false);
 
+                this.enableAsyncScanning = builder
+                        .worldRestart()
+                        .comment("Enable/disable scanning for block effects on a background thread")
+                        .translation("environs.cfg.effects.AsyncScan")
+                        .define("Off-thread Block Scanning", true);
+
+                this.enableImportanceSampling = builder
+                        .worldRestart()
+                        .comment("Only sample blocks that have effects when scanning on a background thread")
+                        .translation("environs.cfg.effects.ImportanceScan")
+                        .define("Importance Sampled Block Scanning", true);
+
+                this.scanBudgetFloor = builder
+                        .comment("Lowest always-on effect scan rate, as a percentage of normal, when the client is struggling")
+                        .translation("environs.cfg.effects.BudgetFloor")
+                        .defineInRange("Scan Budget Floor", 25, 5, 100);
+
+                this.scanBudgetCeiling = builder
+                        .comment("Highest always-on effect scan rate, as a percentage of normal, when the client has headroom")
+                        .translation("environs.cfg.effects.BudgetCeiling")
+                        .defineInRange("Scan Budget Ceiling", 200, 100, 500);
+
                 builder.pop();
             }
 
@@ -275,6 +305,10 @@ public final class Config {
                 this._enableFountainJets = this.enableFountainJets.get();
                 this._enableWaterSplashJets = this.enableWaterSplashJets.get();
                 this._disableUnderwaterParticles = this.disableUnderwaterParticles.get();
+                this._enableAsyncScanning = this.enableAsyncScanning.get();
+                this._enableImportanceSampling = this.enableImportanceSampling.get();
+                this._scanBudgetFloor = this.scanBudgetFloor.get() / 100F;
+                this._scanBudgetCeiling = this.scanBudgetCeiling.get() / 100F;
             }
 
             // Reach over and grab from SoundControl
@@ -314,6 +348,22 @@ public final class Config {
                 return this._disableUnderwaterParticles;
             }
 
+            public boolean get_enableAsyncScanning() {
+                return this._enableAsyncScanning;
+            }
+
+            public boolean get_enableImportanceSampling() {
+                return this._enableImportanceSampling;
+            }
+
+            public float get_scanBudgetFloor() {
+                return this._scanBudgetFloor;
+            }
+
+            public float get_scanBudgetCeiling() {
+                return this._scanBudgetCeiling;
+            }
+
         }
 
         public static class Aurora {
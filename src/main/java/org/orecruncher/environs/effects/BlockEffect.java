@@ -36,6 +36,7 @@ public abstract class BlockEffect {
 
     private int chance;
     protected String conditions = StringUtils.EMPTY;
+    protected int conditionId = ConditionEvaluator.ALWAYS;
 
     public BlockEffect() {
         this(100);
@@ -50,6 +51,7 @@ public abstract class BlockEffect {
 
     public void setConditions(@Nullable final String conditions) {
         this.conditions = conditions == null ? StringUtils.EMPTY : conditions.intern();
+        this.conditionId = ConditionEvaluator.INSTANCE.register(this.conditions);
     }
 
     @Nonnull
@@ -79,7 +81,7 @@ public abstract class BlockEffect {
         if (!alwaysExecute() && random.nextInt(getChance()) != 0)
             return false;
 
-        return ConditionEvaluator.INSTANCE.check(getConditions());
+        return ConditionEvaluator.INSTANCE.check(this.conditionId);
     }
 
     /**
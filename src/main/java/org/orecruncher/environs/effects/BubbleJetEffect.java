@@ -26,6 +26,7 @@ import net.minecraftforge.api.distmarker.Dist;
 import net.minecraftforge.api.distmarker.OnlyIn;
 import org.orecruncher.environs.effects.emitters.BubbleJet;
 import org.orecruncher.environs.effects.emitters.Jet;
+import org.orecruncher.environs.library.BlockStateFlags;
 
 import javax.annotation.Nonnull;
 import java.util.Random;
@@ -56,7 +57,7 @@ public class BubbleJetEffect extends JetEffect {
     @Override
     public void doEffect(@Nonnull final IBlockReader provider, @Nonnull final BlockState state,
                          @Nonnull final BlockPos pos, @Nonnull final Random random) {
-        final int liquidBlocks = countVerticalBlocks(provider, pos, WATER_PREDICATE, 1);
+        final int liquidBlocks = countVerticalBlocks(provider, pos, BlockStateFlags.WATER, 1);
         if (liquidBlocks > 0) {
             final Jet effect = new BubbleJet(liquidBlocks, provider, pos.getX() + 0.5D,
                     pos.getY() + 0.1D, pos.getZ() + 0.5D);
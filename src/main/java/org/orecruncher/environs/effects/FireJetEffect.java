@@ -25,6 +25,7 @@ import net.minecraftforge.api.distmarker.Dist;
 import net.minecraftforge.api.distmarker.OnlyIn;
 import org.orecruncher.environs.effects.emitters.FireJet;
 import org.orecruncher.environs.effects.emitters.Jet;
+import org.orecruncher.environs.library.BlockStateFlags;
 import org.orecruncher.lib.WorldUtils;
 
 import javax.annotation.Nonnull;
@@ -58,7 +59,7 @@ public class FireJetEffect extends JetEffect {
         final boolean isSolid;
 
         if (!state.getFluidState().isEmpty()) {
-            blockCount = countVerticalBlocks(provider, pos, LAVA_PREDICATE, -1);
+            blockCount = countVerticalBlocks(provider, pos, BlockStateFlags.LAVA, -1);
             spawnHeight = pos.getY() + state.getFluidState().getHeight() + 0.1F;
             isSolid = false;
         } else {
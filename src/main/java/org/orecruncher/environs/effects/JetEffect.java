@@ -18,10 +18,7 @@
 
 package org.orecruncher.environs.effects;
 
-import net.minecraft.block.AbstractFurnaceBlock;
 import net.minecraft.block.BlockState;
-import net.minecraft.block.Blocks;
-import net.minecraft.tags.FluidTags;
 import net.minecraft.util.math.BlockPos;
 import net.minecraft.world.IBlockReader;
 import net.minecraftforge.api.distmarker.Dist;
@@ -29,6 +26,7 @@ import net.minecraftforge.api.distmarker.OnlyIn;
 import org.orecruncher.environs.effects.emitters.Jet;
 import org.orecruncher.environs.handlers.ParticleSystems;
 import org.orecruncher.environs.handlers.scripts.ConditionEvaluator;
+import org.orecruncher.environs.library.BlockStateFlags;
 import org.orecruncher.lib.math.MathStuff;
 
 import javax.annotation.Nonnull;
@@ -40,20 +38,17 @@ public abstract class JetEffect extends BlockEffect {
 
     public static final int MAX_STRENGTH = 10;
 
-    public static final Predicate<BlockState> FLUID_PREDICATE = (state) -> !state.getFluidState().isEmpty();
+    public static final Predicate<BlockState> FLUID_PREDICATE = (state) -> BlockStateFlags.test(state, BlockStateFlags.FLUID);
 
-    public static final Predicate<BlockState> LAVA_PREDICATE = (state) -> state.getFluidState().isTagged(FluidTags.LAVA);
+    public static final Predicate<BlockState> LAVA_PREDICATE = (state) -> BlockStateFlags.test(state, BlockStateFlags.LAVA);
 
-    public static final Predicate<BlockState> WATER_PREDICATE = (state) -> state.getFluidState().isTagged(FluidTags.WATER);
+    public static final Predicate<BlockState> WATER_PREDICATE = (state) -> BlockStateFlags.test(state, BlockStateFlags.WATER);
 
-    public static final Predicate<BlockState> SOLID_PREDICATE = (state) -> state.getMaterial().isSolid();
+    public static final Predicate<BlockState> SOLID_PREDICATE = (state) -> BlockStateFlags.test(state, BlockStateFlags.SOLID);
 
-    public static final Predicate<BlockState> LIT_FURNACE = (state) -> state.getBlock() instanceof AbstractFurnaceBlock && state.get(AbstractFurnaceBlock.LIT);
+    public static final Predicate<BlockState> LIT_FURNACE = (state) -> BlockStateFlags.test(state, BlockStateFlags.LIT_FURNACE);
 
-    public static final Predicate<BlockState> HOTBLOCK_PREDICATE = (state) ->
-            LAVA_PREDICATE.test(state)
-                    || state.getBlock() == Blocks.MAGMA_BLOCK
-                    || LIT_FURNACE.test(state);
+    public static final Predicate<BlockState> HOTBLOCK_PREDICATE = (state) -> BlockStateFlags.test(state, BlockStateFlags.HOT);
 
     public JetEffect(final int chance) {
         super(chance);
@@ -68,13 +63,41 @@ public abstract class JetEffect extends BlockEffect {
         return MathStuff.clamp(count, 0, MAX_STRENGTH);
     }
 
+    public static int countVerticalBlocks(@Nonnull final IBlockReader provider, @Nonnull final BlockPos pos,
+                                          final int flags, final int step) {
+        int count = 0;
+        final BlockPos.MutableBlockPos mutable = new BlockPos.MutableBlockPos(pos);
+        for (; count < MAX_STRENGTH && BlockStateFlags.test(provider.getBlockState(mutable), flags); count++)
+            mutable.setY(mutable.getY() + step);
+        return count;
+    }
+
+    public static int countCubeBlocks(@Nonnull final IBlockReader provider, @Nonnull final BlockPos pos,
+                                      final int flags, final boolean fastFirst) {
+        int blockCount = 0;
+        final BlockPos.MutableBlockPos mutable = new BlockPos.MutableBlockPos();
+        for (int k = -1; k <= 1; k++)
+            for (int j = -1; j <= 1; j++)
+                for (int i = -1; i <= 1; i++) {
+                    mutable.setPos(pos.getX() + i, pos.getY() + j, pos.getZ() + k);
+                    if (BlockStateFlags.test(provider.getBlockState(mutable), flags)) {
+                        if (fastFirst)
+                            return 1;
+                        blockCount++;
+                    }
+                }
+        return blockCount;
+    }
+
     public static int countCubeBlocks(@Nonnull final IBlockReader provider, @Nonnull final BlockPos pos,
                                       @Nonnull final Predicate<BlockState> predicate, final boolean fastFirst) {
         int blockCount = 0;
+        final BlockPos.MutableBlockPos mutable = new BlockPos.MutableBlockPos();
         for (int k = -1; k <= 1; k++)
             for (int j = -1; j <= 1; j++)
                 for (int i = -1; i <= 1; i++) {
-                    final BlockState state = provider.getBlockState(pos.add(i, j, k));
+                    mutable.setPos(pos.getX() + i, pos.getY() + j, pos.getZ() + k);
+                    final BlockState state = provider.getBlockState(mutable);
                     if (predicate.test(state)) {
                         if (fastFirst)
                             return 1;
@@ -88,7 +111,7 @@ public abstract class JetEffect extends BlockEffect {
     public boolean canTrigger(@Nonnull final IBlockReader provider, @Nonnull final BlockState state,
                               @Nonnull final BlockPos pos, @Nonnull final Random random) {
         if (alwaysExecute() || random.nextInt(getChance()) == 0) {
-            return ParticleSystems.okToSpawn(pos) && ConditionEvaluator.INSTANCE.check(getConditions());
+            return ParticleSystems.okToSpawn(pos) && ConditionEvaluator.INSTANCE.check(this.conditionId);
         }
         return false;
     }
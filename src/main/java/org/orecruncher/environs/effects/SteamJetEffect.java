@@ -26,6 +26,7 @@ import net.minecraftforge.api.distmarker.Dist;
 import net.minecraftforge.api.distmarker.OnlyIn;
 import org.orecruncher.environs.effects.emitters.Jet;
 import org.orecruncher.environs.effects.emitters.SteamJet;
+import org.orecruncher.environs.library.BlockStateFlags;
 import org.orecruncher.lib.WorldUtils;
 
 import javax.annotation.Nonnull;
@@ -41,7 +42,7 @@ public class SteamJetEffect extends JetEffect {
     public static boolean isValidSpawnBlock(@Nonnull final IBlockReader provider,
                                             @Nonnull final BlockPos pos) {
         return WorldUtils.isAirBlock(provider, pos.up())
-                && countCubeBlocks(provider, pos, HOTBLOCK_PREDICATE, true) > 0;
+                && countCubeBlocks(provider, pos, BlockStateFlags.HOT, true) > 0;
     }
 
     @Override
@@ -59,7 +60,7 @@ public class SteamJetEffect extends JetEffect {
     @Override
     public void doEffect(@Nonnull final IBlockReader provider, @Nonnull final BlockState state,
                          @Nonnull final BlockPos pos, @Nonnull final Random random) {
-        final int strength = countCubeBlocks(provider, pos, HOTBLOCK_PREDICATE, false);
+        final int strength = countCubeBlocks(provider, pos, BlockStateFlags.HOT, false);
         if (strength > 0) {
             final IFluidState fluidState = state.getFluidState();
             final float spawnHeight;
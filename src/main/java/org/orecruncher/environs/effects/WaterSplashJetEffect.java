@@ -30,6 +30,7 @@ import net.minecraftforge.api.distmarker.Dist;
 import net.minecraftforge.api.distmarker.OnlyIn;
 import org.orecruncher.environs.effects.emitters.Jet;
 import org.orecruncher.environs.effects.emitters.WaterSplashJet;
+import org.orecruncher.environs.library.BlockStateFlags;
 import org.orecruncher.lib.WorldUtils;
 
 import net.minecraft.block.material.Material;
@@ -57,8 +58,9 @@ public class WaterSplashJetEffect extends JetEffect {
 	}
 
 	private static boolean isUnboundedLiquid(final IBlockReader provider, final BlockPos pos) {
+		final BlockPos.MutableBlockPos tp = new BlockPos.MutableBlockPos();
 		for (final Vec3i cardinal_offset : cardinal_offsets) {
-			final BlockPos tp = pos.add(cardinal_offset);
+			tp.setPos(pos.getX() + cardinal_offset.getX(), pos.getY() + cardinal_offset.getY(), pos.getZ() + cardinal_offset.getZ());
 			final BlockState state = provider.getBlockState(tp);
 			if (state.getMaterial() == Material.AIR)
 				return true;
@@ -75,8 +77,9 @@ public class WaterSplashJetEffect extends JetEffect {
 	 * Similar to isUnboundedLiquid() but geared towards determine that the liquid is bound on all sides.
 	 */
 	private static boolean isBoundedLiquid(final IBlockReader provider, final BlockPos pos) {
+		final BlockPos.MutableBlockPos tp = new BlockPos.MutableBlockPos();
 		for (final Vec3i cardinal_offset : cardinal_offsets) {
-			final BlockPos tp = pos.add(cardinal_offset);
+			tp.setPos(pos.getX() + cardinal_offset.getX(), pos.getY() + cardinal_offset.getY(), pos.getZ() + cardinal_offset.getZ());
 			final BlockState state = provider.getBlockState(tp);
 			if (state.getMaterial() == Material.AIR)
 				return false;
@@ -95,7 +98,7 @@ public class WaterSplashJetEffect extends JetEffect {
 	}
 
 	private int liquidBlockCount(final IBlockReader provider, final BlockPos pos) {
-		return countVerticalBlocks(provider, pos, FLUID_PREDICATE, 1);
+		return countVerticalBlocks(provider, pos, BlockStateFlags.FLUID, 1);
 	}
 
 	public static boolean isValidSpawnBlock(@Nonnull final IBlockReader provider, @Nonnull final BlockPos pos) {
@@ -21,16 +21,13 @@ package org.orecruncher.environs.fog;
 import net.minecraft.client.GameSettings;
 import net.minecraft.entity.player.PlayerEntity;
 import net.minecraft.potion.Effects;
-import net.minecraft.util.math.BlockPos;
-import net.minecraft.world.IEnviromentBlockReader;
+import it.unimi.dsi.fastutil.objects.Reference2IntMap;
 import net.minecraft.world.World;
-import net.minecraft.world.biome.Biome;
 import net.minecraftforge.api.distmarker.Dist;
 import net.minecraftforge.api.distmarker.OnlyIn;
 import net.minecraftforge.client.event.EntityViewRenderEvent;
-import org.orecruncher.environs.handlers.CommonState;
 import org.orecruncher.environs.library.BiomeInfo;
-import org.orecruncher.environs.library.BiomeUtil;
+import org.orecruncher.environs.scanner.BiomeGrid;
 import org.orecruncher.lib.GameUtils;
 import org.orecruncher.lib.gui.Color;
 import org.orecruncher.lib.math.MathStuff;
@@ -43,10 +40,9 @@ public class BiomeFogColorCalculator extends VanillaFogColorCalculator {
     // ForgeHooksClient.getSkyBlendColour()
     private static final int[] BLEND_RANGES = {2, 4, 6, 8, 10, 12, 14, 16, 18, 20, 22, 24, 26, 28, 30, 32, 34};
 
-    protected final BlockPos.MutableBlockPos pos = new BlockPos.MutableBlockPos();
+    protected final BiomeGrid.Window window = BiomeGrid.INSTANCE.createWindow(BLEND_RANGES[0]);
 
-    protected int posX;
-    protected int posZ;
+    protected int version;
 
     // Last pass calculations. We can reuse if possible to avoid scanning the area, again.
     protected double weightBiomeFog;
@@ -62,65 +58,20 @@ public class BiomeFogColorCalculator extends VanillaFogColorCalculator {
 
         assert player != null && world != null;
 
-        final int playerX = MathStuff.floor(player.posX);
-        final int playerZ = MathStuff.floor(player.posZ);
-
         final GameSettings settings = GameUtils.getGameSettings();
         int distance = 6;
         if (settings.fancyGraphics) {
             distance = BLEND_RANGES[MathStuff.clamp(settings.renderDistanceChunks, 0, BLEND_RANGES.length - 1)];
         }
 
-        // Biome scan - only need to worry about the change in X and Z
-        this.doScan |= this.posX != playerX || this.posZ != playerZ;
+        // The window tracks the biomes around the player.  Only need to recalculate when its content changes.
+        this.window.setRadius(distance);
+        this.doScan |= this.version != this.window.getVersion();
 
         if (this.doScan) {
             this.doScan = false;
-            this.posX = playerX;
-            this.posZ = playerZ;
-            this.weightBiomeFog = 0;
-
-            float red = 0;
-            float green = 0;
-            float blue = 0;
-
-            final IEnviromentBlockReader reader = CommonState.getBlockReader();
-
-            for (int z = -distance; z <= distance; ++z) {
-                for (int x = -distance; x <= distance; ++x) {
-
-                    this.pos.setPos(playerX + x, 0, playerZ + z);
-
-                    final Biome b = reader.getBiome(this.pos);
-                    final BiomeInfo biome = BiomeUtil.getBiomeData(b);
-                    final Color color;
-
-                    // Fetch the color we are dealing with.
-                    if (biome.getHasDust()) {
-                        color = biome.getDustColor();
-                    } else if (biome.getHasFog()) {
-                        color = biome.getFogColor();
-                    } else {
-                        color = null;
-                    }
-
-                    if (color != null) {
-                        red += color.red();
-                        green += color.green();
-                        blue += color.blue();
-                        this.weightBiomeFog += 1F;
-                    }
-                }
-            }
-
-            if (this.weightBiomeFog > 0) {
-                red /= this.weightBiomeFog;
-                green /= this.weightBiomeFog;
-                blue /= this.weightBiomeFog;
-                this.biomeFogColor = new Color(red, green, blue);
-            } else {
-                this.biomeFogColor = new Color(0, 0, 0);
-            }
+            this.version = this.window.getVersion();
+            blend();
         }
 
         // If we have nothing then just return whatever Vanilla wanted
@@ -175,6 +126,51 @@ public class BiomeFogColorCalculator extends VanillaFogColorCalculator {
         return new Color((red + vRed) * scale, (green + vGreen) * scale, (blue + vBlue) * scale);
     }
 
+    /**
+     * Blends the fog colors of the biomes in the window, weighted by how much of the window each covers.
+     */
+    @Nonnull
+    public Color blend() {
+        this.weightBiomeFog = 0;
+
+        float red = 0;
+        float green = 0;
+        float blue = 0;
+
+        for (final Reference2IntMap.Entry<BiomeInfo> kvp : this.window.getBiomes().reference2IntEntrySet()) {
+            final BiomeInfo biome = kvp.getKey();
+            final int count = kvp.getIntValue();
+            final Color color;
+
+            // Fetch the color we are dealing with.
+            if (biome.getHasDust()) {
+                color = biome.getDustColor();
+            } else if (biome.getHasFog()) {
+                color = biome.getFogColor();
+            } else {
+                color = null;
+            }
+
+            if (color != null) {
+                red += color.red() * count;
+                green += color.green() * count;
+                blue += color.blue() * count;
+                this.weightBiomeFog += count;
+            }
+        }
+
+        if (this.weightBiomeFog > 0) {
+            red /= this.weightBiomeFog;
+            green /= this.weightBiomeFog;
+            blue /= this.weightBiomeFog;
+            this.biomeFogColor = new Color(red, green, blue);
+        } else {
+            this.biomeFogColor = new Color(0, 0, 0);
+        }
+
+        return this.biomeFogColor;
+    }
+
     protected Color applyPlayerEffects(@Nonnull final World world, @Nonnull final PlayerEntity player,
                                        @Nonnull final Color fogColor, final float renderPartialTicks) {
         float darkScale = (float) ((player.lastTickPosY + (player.posY - player.lastTickPosY) * renderPartialTicks)
@@ -18,21 +18,15 @@
 
 package org.orecruncher.environs.fog;
 
-import net.minecraft.entity.player.PlayerEntity;
-import net.minecraft.util.math.BlockPos;
-import net.minecraft.world.IEnviromentBlockReader;
+import it.unimi.dsi.fastutil.objects.Reference2IntMap;
 import net.minecraft.world.World;
-import net.minecraft.world.biome.Biome;
-import net.minecraft.world.biome.Biomes;
 import net.minecraftforge.api.distmarker.Dist;
 import net.minecraftforge.api.distmarker.OnlyIn;
 import net.minecraftforge.client.event.EntityViewRenderEvent;
-import org.orecruncher.environs.handlers.CommonState;
 import org.orecruncher.environs.library.BiomeInfo;
-import org.orecruncher.environs.library.BiomeUtil;
+import org.orecruncher.environs.scanner.BiomeGrid;
 import org.orecruncher.lib.GameUtils;
 import org.orecruncher.lib.WorldUtils;
-import org.orecruncher.lib.math.MathStuff;
 
 import javax.annotation.Nonnull;
 
@@ -45,7 +39,7 @@ public class BiomeFogRangeCalculator extends VanillaFogRangeCalculator {
     protected static final int DISTANCE = 20;
     protected static final float DUST_FOG_IMPACT = 0.9F;
 
-    protected final BlockPos.MutableBlockPos pos = new BlockPos.MutableBlockPos();
+    protected final BiomeGrid.Window window = BiomeGrid.INSTANCE.createWindow(DISTANCE);
     protected final Context[] context = {new Context(), new Context()};
 
     public BiomeFogRangeCalculator() {
@@ -56,21 +50,30 @@ public class BiomeFogRangeCalculator extends VanillaFogRangeCalculator {
     @Nonnull
     public FogResult calculate(@Nonnull final EntityViewRenderEvent.RenderFogEvent event) {
 
-        final PlayerEntity player = GameUtils.getPlayer();
         final World world = GameUtils.getWorld();
 
-        assert player != null && world != null;
+        assert world != null;
 
         final double partialTicks = event.getRenderPartialTicks();
-        final int playerX = MathStuff.floor(player.posX);
-        final int playerZ = MathStuff.floor(player.posZ);
         final float rainStr = WorldUtils.getRainStrength(world, (float) partialTicks);
 
         final Context ctx = this.context[event.getFogMode() == -1 ? 0 : 1];
 
-        if (ctx.returnCached(playerX, playerZ, rainStr, event))
+        if (ctx.returnCached(this.window.getVersion(), rainStr, event))
             return ctx.cached;
 
+        return calculate(event.getFogMode(), event.getFarPlaneDistance(), rainStr);
+    }
+
+    /**
+     * Calculates the fog range from the biomes in the window, bypassing the cache.
+     */
+    @Nonnull
+    public FogResult calculate(final int fogMode, final float farPlane, final float rainStr) {
+
+        final Context ctx = this.context[fogMode == -1 ? 0 : 1];
+        final int version = this.window.getVersion();
+
         float fpDistanceBiomeFog = 0F;
         float weightBiomeFog = 0;
 
@@ -78,34 +81,21 @@ public class BiomeFogRangeCalculator extends VanillaFogRangeCalculator {
         ctx.rain = rainStr;
         ctx.doScan = false;
 
-        final IEnviromentBlockReader reader = CommonState.getBlockReader();
+        // The window holds the count of each biome in the area so the parts are weighted by that count
+        for (final Reference2IntMap.Entry<BiomeInfo> kvp : this.window.getBiomes().reference2IntEntrySet()) {
+            final BiomeInfo biome = kvp.getKey();
+            final int count = kvp.getIntValue();
 
-        for (int z = -DISTANCE; z <= DISTANCE; ++z) {
-            for (int x = -DISTANCE; x <= DISTANCE; ++x) {
+            float distancePart = 1F;
 
-                this.pos.setPos(playerX + x, 0, playerZ + z);
-
-                final BiomeInfo biome;
-                if (world.isBlockPresent(this.pos)) {
-                    final Biome b = reader.getBiome(this.pos);
-                    biome = BiomeUtil.getBiomeData(b);
-                } else {
-                    ctx.doScan = true;
-                    biome = BiomeUtil.getBiomeData(Biomes.PLAINS);
-                }
-
-                float distancePart = 1F;
-                final float weightPart = 1;
-
-                if (isRaining && biome.getHasDust()) {
-                    distancePart = 1F - DUST_FOG_IMPACT * rainStr;
-                } else if (biome.getHasFog()) {
-                    distancePart = biome.getFogDensity();
-                }
-
-                fpDistanceBiomeFog += distancePart;
-                weightBiomeFog += weightPart;
+            if (isRaining && biome.getHasDust()) {
+                distancePart = 1F - DUST_FOG_IMPACT * rainStr;
+            } else if (biome.getHasFog()) {
+                distancePart = biome.getFogDensity();
             }
+
+            fpDistanceBiomeFog += distancePart * count;
+            weightBiomeFog += count;
         }
 
         final float weightMixed = (DISTANCE * 2 + 1) * (DISTANCE * 2 + 1);
@@ -113,34 +103,32 @@ public class BiomeFogRangeCalculator extends VanillaFogRangeCalculator {
 
         final float fpDistanceBiomeFogAvg = (weightBiomeFog == 0) ? 0 : fpDistanceBiomeFog / weightBiomeFog;
 
-        final float rangeConst = Math.max(240, event.getFarPlaneDistance() - 16);
-        float farPlaneDistance = (fpDistanceBiomeFog * rangeConst + event.getFarPlaneDistance() * weightDefault)
+        final float rangeConst = Math.max(240, farPlane - 16);
+        float farPlaneDistance = (fpDistanceBiomeFog * rangeConst + farPlane * weightDefault)
                 / weightMixed;
         final float farPlaneDistanceScaleBiome = (0.1f * (1 - fpDistanceBiomeFogAvg) + 0.75f * fpDistanceBiomeFogAvg);
         final float farPlaneDistanceScale = (farPlaneDistanceScaleBiome * weightBiomeFog + 0.75f * weightDefault)
                 / weightMixed;
 
-        ctx.posX = playerX;
-        ctx.posZ = playerZ;
-        ctx.lastFarPlane = event.getFarPlaneDistance();
-        farPlaneDistance = Math.min(farPlaneDistance, event.getFarPlaneDistance());
+        ctx.version = version;
+        ctx.lastFarPlane = farPlane;
+        farPlaneDistance = Math.min(farPlaneDistance, farPlane);
 
-        ctx.cached.set(event.getFogMode(), farPlaneDistance, farPlaneDistanceScale);
+        ctx.cached.set(fogMode, farPlaneDistance, farPlaneDistanceScale);
 
         return ctx.cached;
     }
 
     private static class Context {
         public final FogResult cached = new FogResult();
-        public int posX;
-        public int posZ;
+        public int version;
         public float rain;
         public float lastFarPlane;
         public boolean doScan = true;
 
-        public boolean returnCached(final int pX, final int pZ, final float r,
+        public boolean returnCached(final int v, final float r,
                                     @Nonnull final EntityViewRenderEvent.RenderFogEvent event) {
-            return !this.doScan && pX == this.posX && pZ == this.posZ && r == this.rain
+            return !this.doScan && v == this.version && r == this.rain
                     && this.lastFarPlane == event.getFarPlaneDistance() && this.cached.isValid(event);
         }
     }
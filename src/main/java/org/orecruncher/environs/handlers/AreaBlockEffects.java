@@ -18,11 +18,17 @@
 
 package org.orecruncher.environs.handlers;
 
+import it.unimi.dsi.fastutil.longs.LongIterator;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
 import net.minecraft.entity.player.PlayerEntity;
+import net.minecraft.util.math.BlockPos;
 import net.minecraftforge.api.distmarker.Dist;
 import net.minecraftforge.api.distmarker.OnlyIn;
+import net.minecraftforge.event.TickEvent;
+import net.minecraftforge.event.world.ChunkEvent;
 import net.minecraftforge.eventbus.api.SubscribeEvent;
 import org.orecruncher.environs.Config;
+import org.orecruncher.environs.library.BlockStateUtil;
 import org.orecruncher.environs.scanner.*;
 import org.orecruncher.lib.events.BlockUpdateEvent;
 import org.orecruncher.lib.events.DiagnosticEvent;
@@ -33,11 +39,18 @@ import javax.annotation.Nonnull;
 @OnlyIn(Dist.CLIENT)
 class AreaBlockEffects extends HandlerBase {
 
+    // Cap on the number of block updates processed per tick.  Anything beyond is carried to the next tick.
+    private static final int MAX_UPDATES_PER_TICK = 1024;
+
     protected final LoggingTimerEMA blockChange = new LoggingTimerEMA("Area Block Update");
+    protected final LongOpenHashSet pendingUpdates = new LongOpenHashSet();
+    protected final BlockPos.MutableBlockPos updatePos = new BlockPos.MutableBlockPos();
     protected ClientPlayerLocus locus;
     protected RandomBlockEffectScanner nearEffects;
     protected RandomBlockEffectScanner farEffects;
     protected AlwaysOnBlockEffectScanner alwaysOn;
+    protected ScanExecutor randomEffects;
+    protected ScanBudget budget;
 
     protected long nanos;
 
@@ -47,39 +60,123 @@ class AreaBlockEffects extends HandlerBase {
 
     @Override
     public void process(@Nonnull final PlayerEntity player) {
-        this.nearEffects.tick();
-        this.farEffects.tick();
+        this.budget.onTick(Manager.instance().getAverageNanos());
+        if (this.randomEffects != null) {
+            this.randomEffects.tick();
+        } else {
+            this.nearEffects.tick();
+            this.farEffects.tick();
+            this.nearEffects.getStats().tick();
+            this.farEffects.getStats().tick();
+        }
+        processBlockUpdates();
         this.alwaysOn.tick();
+        this.alwaysOn.getStats().tick();
         this.blockChange.update(this.nanos);
         this.nanos = 0;
     }
 
+    private void processBlockUpdates() {
+        if (this.pendingUpdates.isEmpty())
+            return;
+        final long start = System.nanoTime();
+        final LongIterator itr = this.pendingUpdates.iterator();
+        for (int count = 0; count < MAX_UPDATES_PER_TICK && itr.hasNext(); count++) {
+            this.updatePos.setPos(itr.nextLong());
+            itr.remove();
+            this.alwaysOn.onBlockUpdate(this.updatePos);
+        }
+        this.nanos += System.nanoTime() - start;
+    }
+
     @Override
     public void onConnect() {
+        this.pendingUpdates.clear();
         this.locus = new ClientPlayerLocus();
         this.nearEffects = new RandomBlockEffectScanner(this.locus, RandomBlockEffectScanner.NEAR_RANGE);
         this.farEffects = new RandomBlockEffectScanner(this.locus, RandomBlockEffectScanner.FAR_RANGE);
         this.alwaysOn = new AlwaysOnBlockEffectScanner(this.locus, Config.CLIENT.effects.get_effectRange());
+        if (Config.CLIENT.effects.get_enableAsyncScanning()) {
+            final boolean importance = Config.CLIENT.effects.get_enableImportanceSampling();
+            this.nearEffects.setImportanceSampling(importance);
+            this.farEffects.setImportanceSampling(importance);
+            this.randomEffects = new ScanExecutor(
+                    this.locus,
+                    state -> BlockStateUtil.getData(state).hasSoundsOrEffects(),
+                    this.nearEffects,
+                    this.farEffects);
+        }
+        this.budget = new ScanBudget(
+                Config.CLIENT.effects.get_scanBudgetFloor(),
+                Config.CLIENT.effects.get_scanBudgetCeiling(),
+                this.alwaysOn);
     }
 
     @Override
     public void onDisconnect() {
+        this.pendingUpdates.clear();
+        if (this.randomEffects != null) {
+            this.randomEffects.shutdown();
+            this.randomEffects = null;
+        }
         this.locus = null;
         this.nearEffects = null;
         this.farEffects = null;
         this.alwaysOn = null;
+        this.budget = null;
     }
 
     @SubscribeEvent
     public void onDiagnostics(@Nonnull final DiagnosticEvent event) {
-        if (Config.CLIENT.logging.get_enableLogging())
+        if (Config.CLIENT.logging.get_enableLogging()) {
             event.addRenderTimer(this.blockChange);
+            if (this.budget != null) {
+                event.getLeft().add(this.budget.toString());
+                event.getLeft().add(String.format("Blocks/tick: near %d, far %d, always on %d",
+                        this.nearEffects.getBlocksPerTick(),
+                        this.farEffects.getBlocksPerTick(),
+                        this.alwaysOn.getBlocksPerTick()));
+                event.getLeft().add(this.nearEffects.getStats().toString());
+                event.getLeft().add(this.farEffects.getStats().toString());
+                event.getLeft().add(this.alwaysOn.getStats().toString());
+            }
+        }
+    }
+
+    @SubscribeEvent
+    public void onRenderTick(@Nonnull final TickEvent.RenderTickEvent event) {
+        if (event.phase == TickEvent.Phase.START && this.budget != null)
+            this.budget.onFrame();
+    }
+
+    @SubscribeEvent
+    public void onChunkLoad(@Nonnull final ChunkEvent.Load event) {
+        if (event.getWorld() != null && event.getWorld().isRemote()) {
+            this.alwaysOn.onChunkLoad(event.getChunk());
+            if (this.randomEffects != null)
+                this.randomEffects.onChunkLoad(event.getChunk());
+        }
+    }
+
+    @SubscribeEvent
+    public void onChunkUnload(@Nonnull final ChunkEvent.Unload event) {
+        if (event.getWorld() != null && event.getWorld().isRemote()) {
+            this.alwaysOn.onChunkUnload(event.getChunk());
+            if (this.randomEffects != null)
+                this.randomEffects.onChunkUnload(event.getChunk());
+        }
     }
 
     @SubscribeEvent
     public void onBlockUpdate(@Nonnull final BlockUpdateEvent event) {
+        // Updates are collected and processed in process() so overlapping updates from things like
+        // explosions are only handled once.  Snapshot invalidation is cheap so it is done right away.
         final long start = System.nanoTime();
-        event.getExpandedPositions().forEach(this.alwaysOn::onBlockUpdate);
+        for (final BlockPos pos : event.getExpandedPositions()) {
+            this.pendingUpdates.add(pos.toLong());
+            if (this.randomEffects != null)
+                this.randomEffects.onBlockUpdate(pos);
+        }
         this.nanos += System.nanoTime() - start;
     }
 }
@@ -89,6 +89,7 @@ public class BiomeSoundEffects extends HandlerBase {
 
     @Override
     public void onConnect() {
+        this.biomes.reset();
         clearSounds();
     }
 
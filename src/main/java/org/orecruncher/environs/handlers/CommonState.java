@@ -27,6 +27,7 @@ import org.apache.commons.lang3.StringUtils;
 import org.orecruncher.environs.library.BiomeInfo;
 import org.orecruncher.environs.library.BiomeLibrary;
 import org.orecruncher.environs.library.DimensionInfo;
+import org.orecruncher.environs.scanner.CachedBlockReader;
 import org.orecruncher.lib.*;
 import org.orecruncher.lib.seasons.Season;
 
@@ -66,7 +67,7 @@ public final class CommonState {
 
     MinecraftClock clock = new MinecraftClock();
 
-    EnvironmentBlockReader blockReader;
+    CachedBlockReader blockReader;
 
     CommonState() {
     }
@@ -18,30 +18,30 @@
 
 package org.orecruncher.environs.handlers;
 
-import com.google.common.collect.Streams;
-import net.minecraft.entity.Entity;
-import net.minecraft.entity.merchant.villager.VillagerEntity;
 import net.minecraft.entity.player.PlayerEntity;
-import net.minecraft.tileentity.BellTileEntity;
-import net.minecraft.tileentity.TileEntity;
+import net.minecraft.util.math.BlockPos;
 import net.minecraft.util.text.TextFormatting;
 import net.minecraft.world.LightType;
 import net.minecraft.world.World;
 import net.minecraftforge.api.distmarker.Dist;
 import net.minecraftforge.api.distmarker.OnlyIn;
+import net.minecraftforge.event.entity.EntityJoinWorldEvent;
+import net.minecraftforge.event.world.ChunkEvent;
 import net.minecraftforge.eventbus.api.EventPriority;
 import net.minecraftforge.eventbus.api.SubscribeEvent;
 import org.orecruncher.environs.Config;
 import org.orecruncher.environs.handlers.scripts.ConditionEvaluator;
 import org.orecruncher.environs.library.BiomeLibrary;
 import org.orecruncher.environs.library.DimensionLibrary;
+import org.orecruncher.environs.scanner.BiomeGrid;
+import org.orecruncher.environs.scanner.CachedBlockReader;
 import org.orecruncher.environs.scanner.CeilingCoverage;
 import org.orecruncher.lib.*;
+import org.orecruncher.lib.events.BlockUpdateEvent;
 import org.orecruncher.lib.events.DiagnosticEvent;
 import org.orecruncher.lib.seasons.Season;
 
 import javax.annotation.Nonnull;
-import java.util.Optional;
 
 @OnlyIn(Dist.CLIENT)
 class CommonStateHandler extends HandlerBase {
@@ -49,6 +49,7 @@ class CommonStateHandler extends HandlerBase {
     private static final double VILLAGE_RANGE = 64 * 64;
 
     protected final CeilingCoverage ceilingCoverage = new CeilingCoverage();
+    protected final VillageIndex villageIndex = new VillageIndex();
 
     CommonStateHandler() {
         super("Common State");
@@ -61,11 +62,14 @@ class CommonStateHandler extends HandlerBase {
         final CommonState data = CommonState.getData();
         final World world = player.getEntityWorld();
 
-        ceilingCoverage.tick();
-
-        // Adjust our block reader
+        // Adjust our block reader.  The cache is cleared each tick so it doesn't hang on to unloaded chunks.
         if (data.blockReader == null || data.blockReader.needsUpdate(world))
-            data.blockReader = new EnvironmentBlockReader(world);
+            data.blockReader = new CachedBlockReader(world);
+        else
+            data.blockReader.reset();
+
+        ceilingCoverage.tick();
+        villageIndex.tick(world);
 
         data.clock.update(world);
         data.season = Season.getSeason(world);
@@ -81,6 +85,8 @@ class CommonStateHandler extends HandlerBase {
         data.inside = ceilingCoverage.isReallyInside();
         data.biomeTemperature = WorldUtils.getTemperatureAt(world, data.playerPosition);
 
+        BiomeGrid.INSTANCE.tick(data.blockReader, data.dimensionId, data.playerPosition.getX(), data.playerPosition.getZ());
+
         data.isUnderground = data.playerBiome == BiomeLibrary.UNDERGROUND_INFO;
         data.isInSpace = data.playerBiome == BiomeLibrary.OUTERSPACE_INFO;
         data.isInClouds = data.playerBiome == BiomeLibrary.CLOUDS_INFO;
@@ -93,21 +99,8 @@ class CommonStateHandler extends HandlerBase {
         if (currentTick % 20 == 0) {
             // Only for surface worlds.  Other types of worlds are interpreted as not having villages.
             if (world.getDimension().isSurfaceWorld()) {
-                // Look for a bell within range of the player
-                final Optional<TileEntity> bell = world.loadedTileEntityList.stream()
-                        .filter(te -> te instanceof BellTileEntity)
-                        .filter(te -> te.getDistanceSq(data.playerEyePosition.x, data.playerEyePosition.y, data.playerEyePosition.z) <= VILLAGE_RANGE)
-                        .findAny();
-
-                // If a bell is found, look for a villager within range
-                data.isInVillage = bell.isPresent();
-                if (data.isInVillage) {
-                    final Optional<Entity> entity = Streams.stream(GameUtils.getWorld().getAllEntities())
-                            .filter(e -> e instanceof VillagerEntity)
-                            .filter(e -> e.getDistanceSq(data.playerEyePosition.x, data.playerEyePosition.y, data.playerEyePosition.z) <= VILLAGE_RANGE)
-                            .findAny();
-                    data.isInVillage = entity.isPresent();
-                }
+                // Need a bell and a villager within range of the player
+                data.isInVillage = this.villageIndex.isInVillage(data.playerEyePosition, VILLAGE_RANGE);
             } else {
                 data.isInVillage = false;
             }
@@ -120,6 +113,36 @@ class CommonStateHandler extends HandlerBase {
     @Override
     public void onDisconnect() {
         CommonState.reset();
+        BiomeGrid.INSTANCE.reset();
+        this.villageIndex.reset();
+    }
+
+    @SubscribeEvent
+    public void onBlockUpdate(@Nonnull final BlockUpdateEvent event) {
+        for (final BlockPos pos : event.getExpandedPositions()) {
+            this.ceilingCoverage.onBlockUpdate(pos);
+            this.villageIndex.onBlockUpdate(pos);
+        }
+    }
+
+    @SubscribeEvent
+    public void onChunkLoad(@Nonnull final ChunkEvent.Load event) {
+        if (event.getWorld() != null && event.getWorld().isRemote()) {
+            this.ceilingCoverage.onChunkLoad(event.getChunk());
+            this.villageIndex.onChunkLoad(event.getWorld(), event.getChunk());
+        }
+    }
+
+    @SubscribeEvent
+    public void onChunkUnload(@Nonnull final ChunkEvent.Unload event) {
+        if (event.getWorld() != null && event.getWorld().isRemote())
+            this.villageIndex.onChunkUnload(event.getWorld(), event.getChunk());
+    }
+
+    @SubscribeEvent
+    public void onEntityJoin(@Nonnull final EntityJoinWorldEvent event) {
+        if (event.getWorld().isRemote())
+            this.villageIndex.onEntityJoin(event.getWorld(), event.getEntity());
     }
 
     private final static String[] scripts = {
@@ -36,6 +36,7 @@ public class HandlerBase {
 
     private final String handlerName;
     private final TimerEMA timer;
+    private double averageNanos;
 
     HandlerBase(@Nonnull final String name) {
         this.handlerName = name;
@@ -47,6 +48,14 @@ public class HandlerBase {
         return this.timer;
     }
 
+    /**
+     * Moving average of the time spent in the handler each tick, in nanoseconds. Fed by the same samples
+     * as the timer.
+     */
+    public double getAverageNanos() {
+        return this.averageNanos;
+    }
+
     /**
      * Used to obtain the handler name for logging purposes.
      *
@@ -97,6 +106,7 @@ public class HandlerBase {
     //////////////////////////////
     final void updateTimer(final long nanos) {
         this.timer.update(nanos);
+        this.averageNanos += (nanos - this.averageNanos) * 0.05D;
     }
 
     final void connect0() {
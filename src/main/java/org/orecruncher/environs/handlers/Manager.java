@@ -97,6 +97,16 @@ public class Manager {
         }
     }
 
+    /**
+     * Moving average of the time spent in all handlers each tick, in nanoseconds.
+     */
+    public double getAverageNanos() {
+        double total = 0;
+        for (final HandlerBase h : this.effectHandlers)
+            total += h.getAverageNanos();
+        return total;
+    }
+
     protected static PlayerEntity getPlayer() {
         return GameUtils.getPlayer();
     }
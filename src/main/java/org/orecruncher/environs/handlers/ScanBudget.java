@@ -0,0 +1,138 @@
+/*
+ *  Dynamic Surroundings: Environs
+ *  Copyright (C) 2020  OreCruncher
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>
+ */
+
+
+package org.orecruncher.environs.handlers;
+
+import net.minecraftforge.api.distmarker.Dist;
+import net.minecraftforge.api.distmarker.OnlyIn;
+import org.orecruncher.environs.scanner.Scanner;
+import org.orecruncher.lib.GameUtils;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Scales the number of blocks the scanners walk each tick based on how well the client is keeping up. Frame
+ * time, client tick interval, and the time spent in the effect handlers are tracked as moving averages. If
+ * any of them is over target the budget is cut back quickly, and while all have headroom it is raised
+ * slowly. The budget is a scale applied to each scanner's normal blocks per tick, bounded by the configured
+ * floor and ceiling.  Only scanners whose walk rate does not drive how often effects trigger should be
+ * budgeted; scaling a random scanner would scale the ambience with it.  The always-on scanner charges the
+ * sections and index positions it handles against its blocks per tick, so the scale bounds that work.
+ */
+@OnlyIn(Dist.CLIENT)
+final class ScanBudget {
+
+    private static final double ALPHA = 0.05D;
+    // Frame limit the game reports when unlimited, and the rate targeted in that case
+    private static final int UNLIMITED_FPS = 260;
+    private static final int DEFAULT_TARGET_FPS = 60;
+    // Allowance over the frame target before the client is considered to be struggling
+    private static final double FRAME_SLACK = 1.25D;
+    // A client tick is nominally 50 msecs
+    private static final double TARGET_TICK_NANOS = 55_000_000D;
+    private static final double TARGET_HANDLER_NANOS = 3_000_000D;
+    // Gaps longer than this are pauses, loading screens, etc. and are not counted
+    private static final long MAX_SAMPLE_NANOS = 1_000_000_000L;
+
+    private static final int ADJUST_INTERVAL = 10;
+    private static final float INCREASE = 0.05F;
+    private static final float DECREASE = 0.75F;
+
+    private final Scanner[] scanners;
+    private final float floor;
+    private final float ceiling;
+
+    private float scale = 1F;
+    private double frameNanos;
+    private double tickNanos;
+    private double handlerNanos;
+    private long lastFrame;
+    private long lastTick;
+    private int ticks;
+
+    public ScanBudget(final float floor, final float ceiling, @Nonnull final Scanner... scanners) {
+        this.floor = floor;
+        this.ceiling = Math.max(floor, ceiling);
+        this.scanners = scanners;
+    }
+
+    /**
+     * Called at the start of each rendered frame.
+     */
+    public void onFrame() {
+        final long now = System.nanoTime();
+        final long delta = now - this.lastFrame;
+        if (this.lastFrame != 0 && delta < MAX_SAMPLE_NANOS)
+            this.frameNanos += (delta - this.frameNanos) * ALPHA;
+        this.lastFrame = now;
+    }
+
+    /**
+     * Called once per client tick with the current average time spent in the effect handlers.
+     */
+    public void onTick(final double handlerNanos) {
+        final long now = System.nanoTime();
+        final long delta = now - this.lastTick;
+        if (this.lastTick != 0 && delta < MAX_SAMPLE_NANOS)
+            this.tickNanos += (delta - this.tickNanos) * ALPHA;
+        this.lastTick = now;
+        this.handlerNanos = handlerNanos;
+
+        if (++this.ticks % ADJUST_INTERVAL == 0)
+            adjust();
+    }
+
+    private void adjust() {
+        final boolean stalling = this.frameNanos > getTargetFrameNanos()
+                || this.tickNanos > TARGET_TICK_NANOS
+                || this.handlerNanos > TARGET_HANDLER_NANOS;
+
+        final float newScale;
+        if (stalling)
+            newScale = Math.max(this.floor, this.scale * DECREASE);
+        else
+            newScale = Math.min(this.ceiling, this.scale + INCREASE);
+
+        if (newScale != this.scale) {
+            this.scale = newScale;
+            for (final Scanner s : this.scanners)
+                s.setBudgetScale(newScale);
+        }
+    }
+
+    private static double getTargetFrameNanos() {
+        final int limit = GameUtils.getGameSettings().framerateLimit;
+        final int fps = limit <= 0 || limit >= UNLIMITED_FPS ? DEFAULT_TARGET_FPS : limit;
+        return 1_000_000_000D / fps * FRAME_SLACK;
+    }
+
+    public float getScale() {
+        return this.scale;
+    }
+
+    @Override
+    @Nonnull
+    public String toString() {
+        return String.format("Scan Budget: %d%% (frame %.1fms, tick %.1fms, handlers %.2fms)",
+                Math.round(this.scale * 100F),
+                this.frameNanos / 1_000_000D,
+                this.tickNanos / 1_000_000D,
+                this.handlerNanos / 1_000_000D);
+    }
+}
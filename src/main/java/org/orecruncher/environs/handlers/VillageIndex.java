@@ -0,0 +1,183 @@
+/*
+ *  Dynamic Surroundings: Environs
+ *  Copyright (C) 2020  OreCruncher
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>
+ */
+
+
+package org.orecruncher.environs.handlers;
+
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongIterator;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import it.unimi.dsi.fastutil.objects.ReferenceOpenHashSet;
+import net.minecraft.block.BellBlock;
+import net.minecraft.entity.Entity;
+import net.minecraft.entity.merchant.villager.VillagerEntity;
+import net.minecraft.tileentity.BellTileEntity;
+import net.minecraft.tileentity.TileEntity;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkPos;
+import net.minecraft.util.math.Vec3d;
+import net.minecraft.world.IWorld;
+import net.minecraft.world.World;
+import net.minecraft.world.chunk.Chunk;
+import net.minecraft.world.chunk.IChunk;
+import net.minecraftforge.api.distmarker.Dist;
+import net.minecraftforge.api.distmarker.OnlyIn;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * Tracks the bells and villagers in the client world so that village detection is a range query rather than a
+ * walk of every tile entity and entity.  Bells are bucketed by chunk.  The index is seeded from the world when
+ * it changes and kept current through chunk, block update and entity join events.
+ */
+@OnlyIn(Dist.CLIENT)
+final class VillageIndex {
+
+    // How often, in ticks, villagers that left the world are dropped
+    private static final int PRUNE_INTERVAL = 20;
+
+    private final Long2ObjectOpenHashMap<LongOpenHashSet> bells = new Long2ObjectOpenHashMap<>();
+    private final LongOpenHashSet pendingChunks = new LongOpenHashSet();
+    private final ReferenceOpenHashSet<VillagerEntity> villagers = new ReferenceOpenHashSet<>();
+    @Nullable
+    private World world;
+    private int ticks;
+
+    public void tick(@Nonnull final World world) {
+        if (this.world != world) {
+            reset();
+            this.world = world;
+            for (final TileEntity te : world.loadedTileEntityList)
+                if (te instanceof BellTileEntity)
+                    addBell(te.getPos());
+            for (final Entity e : world.getAllEntities())
+                onEntityJoin(world, e);
+            return;
+        }
+
+        // Tile entities of a chunk are created after its load event fires so they are picked up a tick later
+        if (!this.pendingChunks.isEmpty()) {
+            final LongIterator itr = this.pendingChunks.iterator();
+            while (itr.hasNext()) {
+                final long key = itr.nextLong();
+                final int x = ChunkPos.getX(key);
+                final int z = ChunkPos.getZ(key);
+                if (world.getChunkProvider().chunkExists(x, z)) {
+                    final Chunk chunk = world.getChunk(x, z);
+                    for (final TileEntity te : chunk.getTileEntityMap().values())
+                        if (te instanceof BellTileEntity)
+                            addBell(te.getPos());
+                }
+            }
+            this.pendingChunks.clear();
+        }
+
+        if (++this.ticks >= PRUNE_INTERVAL) {
+            this.ticks = 0;
+            this.villagers.removeIf(villager -> !villager.isAlive() || villager.world != world);
+        }
+    }
+
+    public void reset() {
+        this.bells.clear();
+        this.pendingChunks.clear();
+        this.villagers.clear();
+        this.world = null;
+        this.ticks = 0;
+    }
+
+    public void onChunkLoad(@Nonnull final IWorld world, @Nonnull final IChunk chunk) {
+        if (this.world == world)
+            this.pendingChunks.add(chunk.getPos().asLong());
+    }
+
+    public void onChunkUnload(@Nonnull final IWorld world, @Nonnull final IChunk chunk) {
+        if (this.world == world) {
+            final long key = chunk.getPos().asLong();
+            this.bells.remove(key);
+            this.pendingChunks.remove(key);
+        }
+    }
+
+    public void onBlockUpdate(@Nonnull final BlockPos pos) {
+        if (this.world == null)
+            return;
+        if (this.world.getBlockState(pos).getBlock() instanceof BellBlock) {
+            addBell(pos);
+        } else {
+            final LongOpenHashSet bucket = this.bells.get(ChunkPos.asLong(pos.getX() >> 4, pos.getZ() >> 4));
+            if (bucket != null)
+                bucket.remove(pos.toLong());
+        }
+    }
+
+    public void onEntityJoin(@Nonnull final IWorld world, @Nonnull final Entity entity) {
+        if (this.world == world && entity instanceof VillagerEntity)
+            this.villagers.add((VillagerEntity) entity);
+    }
+
+    /**
+     * Determines if there is both a bell and a villager within range of the point.  Range is squared.
+     */
+    public boolean isInVillage(@Nonnull final Vec3d point, final double rangeSq) {
+        return hasBell(point, rangeSq) && hasVillager(point, rangeSq);
+    }
+
+    private boolean hasBell(@Nonnull final Vec3d point, final double rangeSq) {
+        final int chunkRange = ((int) Math.ceil(Math.sqrt(rangeSq)) >> 4) + 1;
+        final int cx = (int) Math.floor(point.x) >> 4;
+        final int cz = (int) Math.floor(point.z) >> 4;
+        for (int x = cx - chunkRange; x <= cx + chunkRange; x++) {
+            for (int z = cz - chunkRange; z <= cz + chunkRange; z++) {
+                final LongOpenHashSet bucket = this.bells.get(ChunkPos.asLong(x, z));
+                if (bucket == null)
+                    continue;
+                final LongIterator itr = bucket.iterator();
+                while (itr.hasNext()) {
+                    final BlockPos pos = BlockPos.fromLong(itr.nextLong());
+                    final double dx = pos.getX() + 0.5D - point.x;
+                    final double dy = pos.getY() + 0.5D - point.y;
+                    final double dz = pos.getZ() + 0.5D - point.z;
+                    if (dx * dx + dy * dy + dz * dz <= rangeSq)
+                        return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private boolean hasVillager(@Nonnull final Vec3d point, final double rangeSq) {
+        for (final VillagerEntity villager : this.villagers) {
+            // Entities that left the world are dropped by tick()
+            if (villager.isAlive() && villager.world == this.world && villager.getDistanceSq(point.x, point.y, point.z) <= rangeSq)
+                return true;
+        }
+        return false;
+    }
+
+    private void addBell(@Nonnull final BlockPos pos) {
+        final long key = ChunkPos.asLong(pos.getX() >> 4, pos.getZ() >> 4);
+        LongOpenHashSet bucket = this.bells.get(key);
+        if (bucket == null) {
+            bucket = new LongOpenHashSet();
+            this.bells.put(key, bucket);
+        }
+        bucket.add(pos.toLong());
+    }
+}
@@ -0,0 +1,567 @@
+/*
+ *  Dynamic Surroundings: Environs
+ *  Copyright (C) 2020  OreCruncher
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>
+ */
+
+
+package org.orecruncher.environs.handlers.scripts;
+
+import net.minecraftforge.api.distmarker.Dist;
+import net.minecraftforge.api.distmarker.OnlyIn;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.BinaryOperator;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Compiles the common subset of condition scripts (literals, comparisons, logical operators, arithmetic and
+ * variable set lookups) into a tree of suppliers so they can be evaluated without going through the script
+ * engine.  Anything outside of that subset is rejected and the caller falls back to the script engine.
+ * Evaluation follows JavaScript semantics for truthiness, equality and comparisons.  Sub-expressions that do
+ * not read any variables are folded into constants when compiled.
+ */
+@OnlyIn(Dist.CLIENT)
+public final class ConditionCompiler {
+
+    /**
+     * Resolves "set.member" references.  Args is null for a property access and holds the compiled arguments
+     * for a method call.  Reference is the source text of the whole reference, arguments included.  Returning
+     * null marks the expression as unsupported.
+     */
+    @FunctionalInterface
+    public interface IResolver {
+        @Nullable
+        Supplier<Object> resolve(@Nonnull final String set, @Nonnull final String member, @Nullable final List<Supplier<Object>> args, @Nonnull final String reference);
+    }
+
+    private static final Object[] NO_ARGS = new Object[0];
+
+    private final String source;
+    private final IResolver resolver;
+    private int pos;
+
+    private ConditionCompiler(@Nonnull final String source, @Nonnull final IResolver resolver) {
+        this.source = source;
+        this.resolver = resolver;
+    }
+
+    /**
+     * Compiles the expression into a predicate.  Returns null if the expression cannot be compiled.
+     */
+    @Nullable
+    public static BooleanSupplier compile(@Nonnull final String expression, @Nonnull final IResolver resolver) {
+        final Supplier<Object> root = parse(expression, resolver);
+        if (root == null)
+            return null;
+        // Like the script callers, only a boolean true result passes
+        return () -> Boolean.TRUE.equals(root.get());
+    }
+
+    /**
+     * Evaluates the expression at load time.  Returns the result if it does not depend on any variable, or null
+     * if it does or if the expression cannot be compiled.
+     */
+    @Nullable
+    public static Boolean fold(@Nonnull final String expression, @Nonnull final IResolver resolver) {
+        final Supplier<Object> root = parse(expression, resolver);
+        if (!(root instanceof Constant))
+            return null;
+        return Boolean.TRUE.equals(root.get());
+    }
+
+    @Nullable
+    private static Supplier<Object> parse(@Nonnull final String expression, @Nonnull final IResolver resolver) {
+        try {
+            final ConditionCompiler compiler = new ConditionCompiler(expression, resolver);
+            final Supplier<Object> root = compiler.parseOr();
+            compiler.skipWhitespace();
+            return compiler.pos == expression.length() ? root : null;
+        } catch (@Nonnull final Unsupported ignore) {
+            return null;
+        }
+    }
+
+    /**
+     * Resolver that binds "set.method(...)" and bean style "set.property" references to the methods of the
+     * public interfaces implemented by the objects in the map.
+     */
+    @Nonnull
+    public static IResolver reflective(@Nonnull final Map<String, Object> sets) {
+        return (set, member, args, reference) -> {
+            final Object target = sets.get(set);
+            if (target == null)
+                return null;
+            final Method method;
+            if (args == null) {
+                final String cap = Character.toUpperCase(member.charAt(0)) + member.substring(1);
+                Method m = findMethod(target, "get" + cap, 0);
+                if (m == null)
+                    m = findMethod(target, "is" + cap, 0);
+                method = m;
+            } else {
+                method = findMethod(target, member, args.size());
+            }
+            if (method == null)
+                return null;
+            final Class<?>[] types = method.getParameterTypes();
+            for (final Class<?> t : types)
+                if (t != String.class && !t.isPrimitive())
+                    return null;
+            final List<Supplier<Object>> params = args == null ? new ArrayList<>() : args;
+            return () -> {
+                try {
+                    final Object[] values = params.isEmpty() ? NO_ARGS : new Object[params.size()];
+                    for (int i = 0; i < values.length; i++)
+                        values[i] = coerce(params.get(i).get(), types[i]);
+                    return method.invoke(target, values);
+                } catch (@Nonnull final Throwable t) {
+                    return null;
+                }
+            };
+        };
+    }
+
+    @Nullable
+    private static Method findMethod(@Nonnull final Object target, @Nonnull final String name, final int arity) {
+        for (final Method m : target.getClass().getMethods()) {
+            if (!m.getDeclaringClass().isInterface() || !m.getName().equals(name) || m.getParameterCount() != arity)
+                continue;
+            try {
+                m.setAccessible(true);
+            } catch (@Nonnull final Throwable ignore) {
+            }
+            return m;
+        }
+        return null;
+    }
+
+    @Nullable
+    private static Object coerce(@Nullable final Object value, @Nonnull final Class<?> type) {
+        if (type == String.class)
+            return value == null ? null : value.toString();
+        if (type == boolean.class)
+            return isTrue(value);
+        final double d = toNumber(value);
+        if (type == int.class)
+            return (int) d;
+        if (type == long.class)
+            return (long) d;
+        if (type == float.class)
+            return (float) d;
+        if (type == double.class)
+            return d;
+        throw new IllegalArgumentException("Unsupported parameter type " + type.getName());
+    }
+
+    //
+    // Value semantics
+    //
+
+    static boolean isTrue(@Nullable final Object value) {
+        if (value instanceof Boolean)
+            return (Boolean) value;
+        if (value instanceof Number) {
+            final double d = ((Number) value).doubleValue();
+            return d != 0 && !Double.isNaN(d);
+        }
+        if (value instanceof String)
+            return ((String) value).length() > 0;
+        return value != null;
+    }
+
+    static double toNumber(@Nullable final Object value) {
+        if (value instanceof Number)
+            return ((Number) value).doubleValue();
+        if (value instanceof Boolean)
+            return (Boolean) value ? 1 : 0;
+        if (value == null)
+            return 0;
+        if (value instanceof String) {
+            final String s = ((String) value).trim();
+            if (s.isEmpty())
+                return 0;
+            try {
+                return Double.parseDouble(s);
+            } catch (@Nonnull final NumberFormatException ignore) {
+            }
+        }
+        return Double.NaN;
+    }
+
+    private static boolean looseEquals(@Nullable final Object a, @Nullable final Object b) {
+        if (a == null || b == null)
+            return a == b;
+        if (a instanceof String && b instanceof String)
+            return a.equals(b);
+        if (a instanceof Boolean && b instanceof Boolean)
+            return a.equals(b);
+        if (isPrimitive(a) && isPrimitive(b))
+            return toNumber(a) == toNumber(b);
+        return a.equals(b);
+    }
+
+    private static boolean strictEquals(@Nullable final Object a, @Nullable final Object b) {
+        if (a instanceof Number && b instanceof Number)
+            return ((Number) a).doubleValue() == ((Number) b).doubleValue();
+        return Objects.equals(a, b);
+    }
+
+    private static boolean isPrimitive(@Nonnull final Object o) {
+        return o instanceof Number || o instanceof Boolean || o instanceof String;
+    }
+
+    private static int compare(@Nullable final Object a, @Nullable final Object b) {
+        if (a instanceof String && b instanceof String)
+            return ((String) a).compareTo((String) b);
+        final double x = toNumber(a);
+        final double y = toNumber(b);
+        // NaN compares false against everything
+        if (Double.isNaN(x) || Double.isNaN(y))
+            return Integer.MIN_VALUE;
+        return Double.compare(x, y);
+    }
+
+    //
+    // Parser
+    //
+
+    private Supplier<Object> parseOr() {
+        Supplier<Object> left = parseAnd();
+        while (match("||")) {
+            final Supplier<Object> l = left;
+            final Supplier<Object> r = parseAnd();
+            if (l instanceof Constant)
+                left = isTrue(l.get()) ? l : r;
+            else
+                left = () -> {
+                    final Object v = l.get();
+                    return isTrue(v) ? v : r.get();
+                };
+        }
+        return left;
+    }
+
+    private Supplier<Object> parseAnd() {
+        Supplier<Object> left = parseEquality();
+        while (match("&&")) {
+            final Supplier<Object> l = left;
+            final Supplier<Object> r = parseEquality();
+            if (l instanceof Constant)
+                left = isTrue(l.get()) ? r : l;
+            else
+                left = () -> {
+                    final Object v = l.get();
+                    return isTrue(v) ? r.get() : v;
+                };
+        }
+        return left;
+    }
+
+    private Supplier<Object> parseEquality() {
+        Supplier<Object> left = parseRelational();
+        while (true) {
+            if (match("==="))
+                left = combine(left, parseRelational(), ConditionCompiler::strictEquals);
+            else if (match("!=="))
+                left = combine(left, parseRelational(), (a, b) -> !strictEquals(a, b));
+            else if (match("=="))
+                left = combine(left, parseRelational(), ConditionCompiler::looseEquals);
+            else if (match("!="))
+                left = combine(left, parseRelational(), (a, b) -> !looseEquals(a, b));
+            else
+                return left;
+        }
+    }
+
+    private Supplier<Object> parseRelational() {
+        Supplier<Object> left = parseAdditive();
+        while (true) {
+            if (match("<="))
+                left = combine(left, parseAdditive(), (a, b) -> {
+                    final int c = compare(a, b);
+                    return c != Integer.MIN_VALUE && c <= 0;
+                });
+            else if (match(">="))
+                left = combine(left, parseAdditive(), (a, b) -> {
+                    final int c = compare(a, b);
+                    return c != Integer.MIN_VALUE && c >= 0;
+                });
+            else if (match("<"))
+                left = combine(left, parseAdditive(), (a, b) -> {
+                    final int c = compare(a, b);
+                    return c != Integer.MIN_VALUE && c < 0;
+                });
+            else if (match(">"))
+                left = combine(left, parseAdditive(), (a, b) -> {
+                    final int c = compare(a, b);
+                    return c != Integer.MIN_VALUE && c > 0;
+                });
+            else
+                return left;
+        }
+    }
+
+    private Supplier<Object> parseAdditive() {
+        Supplier<Object> left = parseMultiplicative();
+        while (true) {
+            if (match("+"))
+                left = combine(left, parseMultiplicative(), (a, b) -> {
+                    if (a instanceof String || b instanceof String)
+                        return String.valueOf(a) + b;
+                    return toNumber(a) + toNumber(b);
+                });
+            else if (match("-"))
+                left = combine(left, parseMultiplicative(), (a, b) -> toNumber(a) - toNumber(b));
+            else
+                return left;
+        }
+    }
+
+    private Supplier<Object> parseMultiplicative() {
+        Supplier<Object> left = parseUnary();
+        while (true) {
+            if (match("*"))
+                left = combine(left, parseUnary(), (a, b) -> toNumber(a) * toNumber(b));
+            else if (match("/"))
+                left = combine(left, parseUnary(), (a, b) -> toNumber(a) / toNumber(b));
+            else if (match("%"))
+                left = combine(left, parseUnary(), (a, b) -> toNumber(a) % toNumber(b));
+            else
+                return left;
+        }
+    }
+
+    private Supplier<Object> parseUnary() {
+        if (match("!")) {
+            final Supplier<Object> operand = parseUnary();
+            if (operand instanceof Constant)
+                return constant(!isTrue(operand.get()));
+            return () -> !isTrue(operand.get());
+        }
+        if (match("-")) {
+            final Supplier<Object> operand = parseUnary();
+            if (operand instanceof Constant)
+                return constant(-toNumber(operand.get()));
+            return () -> -toNumber(operand.get());
+        }
+        return parsePrimary();
+    }
+
+    /**
+     * Builds a binary operator node.  If both operands are constant the result is computed now.
+     */
+    private static Supplier<Object> combine(@Nonnull final Supplier<Object> l, @Nonnull final Supplier<Object> r, @Nonnull final BinaryOperator<Object> op) {
+        if (l instanceof Constant && r instanceof Constant)
+            return constant(op.apply(l.get(), r.get()));
+        return () -> op.apply(l.get(), r.get());
+    }
+
+    private Supplier<Object> parsePrimary() {
+        skipWhitespace();
+        if (this.pos >= this.source.length())
+            throw Unsupported.INSTANCE;
+
+        final char c = this.source.charAt(this.pos);
+        if (c == '(') {
+            this.pos++;
+            final Supplier<Object> inner = parseOr();
+            expect(")");
+            return inner;
+        }
+        if (c == '\'' || c == '"')
+            return constant(parseString(c));
+        if (Character.isDigit(c) || c == '.')
+            return constant(parseNumber());
+        if (!Character.isJavaIdentifierStart(c))
+            throw Unsupported.INSTANCE;
+
+        final int start = this.pos;
+        final String name = parseIdentifier();
+        switch (name) {
+            case "true":
+                return constant(Boolean.TRUE);
+            case "false":
+                return constant(Boolean.FALSE);
+            case "null":
+                return constant(null);
+            default:
+                break;
+        }
+
+        expect(".");
+        final String member = parseIdentifier();
+        List<Supplier<Object>> args = null;
+        if (match("(")) {
+            args = new ArrayList<>();
+            if (!match(")")) {
+                do {
+                    args.add(parseOr());
+                } while (match(","));
+                expect(")");
+            }
+        }
+
+        final String reference = this.source.substring(start, this.pos);
+
+        // Chained access like "biome.name.length" is left to the script engine
+        skipWhitespace();
+        if (this.pos < this.source.length() && (this.source.charAt(this.pos) == '.' || this.source.charAt(this.pos) == '('))
+            throw Unsupported.INSTANCE;
+
+        Supplier<Object> result;
+        if ("lib".equals(name)) {
+            result = library(member, args);
+            if (result != null && args.stream().allMatch(a -> a instanceof Constant))
+                result = constant(result.get());
+        } else {
+            result = this.resolver.resolve(name, member, args, reference);
+        }
+        if (result == null)
+            throw Unsupported.INSTANCE;
+        return result;
+    }
+
+    @Nullable
+    private static Supplier<Object> library(@Nonnull final String member, @Nullable final List<Supplier<Object>> args) {
+        if (args == null)
+            return null;
+        if ("oneof".equals(member) && args.size() > 1) {
+            final Supplier<Object> value = args.get(0);
+            final List<Supplier<Object>> choices = args.subList(1, args.size());
+            return () -> {
+                final Object v = value.get();
+                for (final Supplier<Object> choice : choices)
+                    if (looseEquals(v, choice.get()))
+                        return true;
+                return false;
+            };
+        }
+        if ("isBetween".equals(member) && args.size() == 3) {
+            final Supplier<Object> value = args.get(0);
+            final Supplier<Object> min = args.get(1);
+            final Supplier<Object> max = args.get(2);
+            return () -> {
+                final double v = toNumber(value.get());
+                return v >= toNumber(min.get()) && v <= toNumber(max.get());
+            };
+        }
+        return null;
+    }
+
+    private static Supplier<Object> constant(@Nullable final Object value) {
+        return new Constant(value);
+    }
+
+    private String parseString(final char quote) {
+        final StringBuilder builder = new StringBuilder();
+        this.pos++;
+        while (this.pos < this.source.length()) {
+            final char c = this.source.charAt(this.pos++);
+            if (c == quote)
+                return builder.toString();
+            if (c == '\\')
+                throw Unsupported.INSTANCE;
+            builder.append(c);
+        }
+        throw Unsupported.INSTANCE;
+    }
+
+    private Double parseNumber() {
+        final int start = this.pos;
+        while (this.pos < this.source.length()) {
+            final char c = this.source.charAt(this.pos);
+            if (!Character.isDigit(c) && c != '.')
+                break;
+            this.pos++;
+        }
+        try {
+            return Double.valueOf(this.source.substring(start, this.pos));
+        } catch (@Nonnull final NumberFormatException ex) {
+            throw Unsupported.INSTANCE;
+        }
+    }
+
+    private String parseIdentifier() {
+        skipWhitespace();
+        final int start = this.pos;
+        if (this.pos >= this.source.length() || !Character.isJavaIdentifierStart(this.source.charAt(this.pos)))
+            throw Unsupported.INSTANCE;
+        while (this.pos < this.source.length() && Character.isJavaIdentifierPart(this.source.charAt(this.pos)))
+            this.pos++;
+        return this.source.substring(start, this.pos);
+    }
+
+    private void expect(@Nonnull final String token) {
+        if (!match(token))
+            throw Unsupported.INSTANCE;
+    }
+
+    private boolean match(@Nonnull final String token) {
+        skipWhitespace();
+        if (!this.source.startsWith(token, this.pos))
+            return false;
+        // Don't let "<" swallow "<=", "=" swallow "==", "&" swallow "&&", etc.
+        final int end = this.pos + token.length();
+        if (end < this.source.length()) {
+            final char next = this.source.charAt(end);
+            if (token.length() == 1 && "<>!".indexOf(token.charAt(0)) >= 0 && next == '=')
+                return false;
+            if (("==".equals(token) || "!=".equals(token)) && next == '=')
+                return false;
+            if (("|".equals(token) || "&".equals(token)) && next == token.charAt(0))
+                return false;
+        }
+        this.pos = end;
+        return true;
+    }
+
+    private void skipWhitespace() {
+        while (this.pos < this.source.length() && Character.isWhitespace(this.source.charAt(this.pos)))
+            this.pos++;
+    }
+
+    /**
+     * Signals that the expression cannot be compiled.  It is thrown often while the configs load, so it is a
+     * shared instance with no stack trace.
+     */
+    private static final class Unsupported extends RuntimeException {
+        static final Unsupported INSTANCE = new Unsupported();
+
+        private Unsupported() {
+            super(null, null, false, false);
+        }
+    }
+
+    private static final class Constant implements Supplier<Object> {
+        private final Object value;
+
+        Constant(@Nullable final Object value) {
+            this.value = value;
+        }
+
+        @Override
+        public Object get() {
+            return this.value;
+        }
+    }
+}
@@ -18,45 +18,230 @@
 
 package org.orecruncher.environs.handlers.scripts;
 
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
 import net.minecraft.util.StringUtils;
 import net.minecraftforge.api.distmarker.Dist;
 import net.minecraftforge.api.distmarker.OnlyIn;
+import org.orecruncher.environs.Environs;
 import org.orecruncher.lib.scripting.ExecutionContext;
+import org.orecruncher.lib.scripting.VariableSet;
 import org.orecruncher.lib.scripting.sets.*;
 
 import javax.annotation.Nonnull;
-import java.util.Optional;
+import javax.annotation.Nullable;
+import java.util.*;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
 
 @OnlyIn(Dist.CLIENT)
 public final class ConditionEvaluator {
 
     public static final ConditionEvaluator INSTANCE = new ConditionEvaluator();
 
+    /**
+     * Id of the empty condition string, which always passes.
+     */
+    public static final int ALWAYS = 0;
+
     private final ExecutionContext context = new ExecutionContext("Conditions");
+    private final Map<String, Object> variables = new HashMap<>();
+    private final Map<String, VariableSet<?>> sets = new HashMap<>();
+    private final ConditionCompiler.IResolver reflective = ConditionCompiler.reflective(this.variables);
+
+    // Distinct condition strings are given an id on registration.  A result stays valid until one of the
+    // variables the condition reads changes.
+    private final Object2IntOpenHashMap<String> ids = new Object2IntOpenHashMap<>();
+    private final List<BooleanSupplier> predicates = new ArrayList<>();
+    private final BitSet valid = new BitSet();
+    private final BitSet results = new BitSet();
+
+    // Conditions that are evaluated by the script engine have no dependency information
+    private final BitSet untracked = new BitSet();
+
+    // Variable reads shared by the compiled conditions, sampled once per tick.  A read used as an argument of
+    // another is registered first so it is sampled first.
+    private final Map<String, Dependency> dependencies = new HashMap<>();
+    private final List<Dependency> sampled = new ArrayList<>();
+    private final Set<Dependency> compiling = new LinkedHashSet<>();
+
+    // Variable sets read by the compiled conditions are updated every tick.  The rest are only brought up to
+    // date when the script engine is used.
+    private final Set<VariableSet<?>> live = new LinkedHashSet<>();
+    private boolean stale = true;
+
+    // Load time analysis results for the report
+    private final Object2IntOpenHashMap<String> removed = new Object2IntOpenHashMap<>();
+    private final Object2IntOpenHashMap<String> simplified = new Object2IntOpenHashMap<>();
 
     private ConditionEvaluator() {
-        this.context.add(new BiomeVariables());
-        this.context.add(new DimensionVariables());
-        this.context.add(new DiurnalCycleVariables());
-        this.context.add(new PlayerVariables());
-        this.context.add(new WeatherVariables());
-        this.context.add(new StateVariables());
-        this.context.add(new SeasonVariables());
+        this.ids.defaultReturnValue(-1);
+        this.ids.put(StringUtils.EMPTY, ALWAYS);
+        this.predicates.add(() -> true);
+
+        add("biome", new BiomeVariables());
+        add("dim", new DimensionVariables());
+        add("diurnal", new DiurnalCycleVariables());
+        add("player", new PlayerVariables());
+        add("weather", new WeatherVariables());
+        add("state", new StateVariables());
+        add("season", new SeasonVariables());
+    }
+
+    private void add(@Nonnull final String name, @Nonnull final VariableSet<?> set) {
+        this.context.add(set);
+        this.variables.put(name, set.getInterface());
+        this.sets.put(name, set);
     }
 
     public void tick() {
-        this.context.update();
+        for (final VariableSet<?> set : this.live)
+            set.update();
+        this.stale = true;
+
+        // Only conditions that read a variable that changed need to be evaluated again
+        for (final Dependency dep : this.sampled) {
+            if (dep.sample()) {
+                for (int i = 0; i < dep.dependents.size(); i++)
+                    this.valid.clear(dep.dependents.getInt(i));
+            }
+        }
+        this.valid.andNot(this.untracked);
     }
 
     public boolean check(@Nonnull final String conditions) {
-        final Object result = eval(conditions);
-        return result instanceof Boolean && (boolean) result;
+        return check(register(conditions));
+    }
+
+    /**
+     * Checks the condition with the specified id.  The result is cached until a variable it reads changes.
+     */
+    public boolean check(final int id) {
+        if (id == ALWAYS)
+            return true;
+        if (!this.valid.get(id)) {
+            this.valid.set(id);
+            this.results.set(id, this.predicates.get(id).getAsBoolean());
+        }
+        return this.results.get(id);
+    }
+
+    /**
+     * Assigns an id to the conditions, compiling them ahead of time.  Conditions that cannot be compiled are
+     * routed to the script engine when checked.
+     */
+    public int register(@Nullable final String conditions) {
+        if (StringUtils.isNullOrEmpty(conditions))
+            return ALWAYS;
+        int id = this.ids.getInt(conditions);
+        if (id < 0) {
+            id = this.predicates.size();
+            this.compiling.clear();
+            BooleanSupplier predicate = ConditionCompiler.compile(conditions, this::resolve);
+            if (predicate == null) {
+                Environs.LOGGER.debug("Condition '%s' will be evaluated by the script engine", conditions);
+                predicate = () -> {
+                    final Object result = eval(conditions);
+                    return result instanceof Boolean && (boolean) result;
+                };
+                this.untracked.set(id);
+            } else {
+                for (final Dependency dep : this.compiling) {
+                    if (dep.dependents.isEmpty()) {
+                        this.sampled.add(dep);
+                        this.live.add(dep.set);
+                    }
+                    dep.dependents.add(id);
+                }
+            }
+            this.predicates.add(predicate);
+            this.ids.put(conditions, id);
+        }
+        return id;
+    }
+
+    /**
+     * Analyzes the conditions of an entry being loaded.  Returns null if the conditions can never be true,
+     * StringUtils.EMPTY if they are always true, and the conditions unchanged otherwise.  Only parts that read no
+     * variable are folded; every acoustic and effect condition in the shipped configs reads the player's
+     * surroundings, so for those this is a no-op and it only pays off for hand written constant conditions.
+     */
+    @Nullable
+    public String simplify(@Nullable final String conditions) {
+        if (StringUtils.isNullOrEmpty(conditions))
+            return StringUtils.EMPTY;
+        final Boolean result = ConditionCompiler.fold(conditions, this.reflective);
+        if (result == null)
+            return conditions;
+        if (result) {
+            this.simplified.addTo(conditions, 1);
+            return StringUtils.EMPTY;
+        }
+        this.removed.addTo(conditions, 1);
+        return null;
+    }
+
+    /**
+     * Logs the results of the load time analysis and resets them.
+     */
+    public void report() {
+        if (!this.removed.isEmpty() || !this.simplified.isEmpty()) {
+            Environs.LOGGER.info("*** CONDITION ANALYSIS ***");
+            this.removed.object2IntEntrySet().forEach(e -> Environs.LOGGER.info("Removed %d entries that can never match: [%s]", e.getIntValue(), e.getKey()));
+            this.simplified.object2IntEntrySet().forEach(e -> Environs.LOGGER.info("Simplified %d entries that always match: [%s]", e.getIntValue(), e.getKey()));
+        }
+        this.removed.clear();
+        this.simplified.clear();
+    }
+
+    @Nullable
+    private Supplier<Object> resolve(@Nonnull final String set, @Nonnull final String member, @Nullable final List<Supplier<Object>> args, @Nonnull final String reference) {
+        Dependency dep = this.dependencies.get(reference);
+        if (dep == null) {
+            final Supplier<Object> reader = this.reflective.resolve(set, member, args, reference);
+            if (reader == null)
+                return null;
+            dep = new Dependency(this.sets.get(set), reader);
+            this.dependencies.put(reference, dep);
+        }
+        this.compiling.add(dep);
+        final Dependency d = dep;
+        return () -> d.value;
     }
 
     public Object eval(@Nonnull final String conditions) {
         if (StringUtils.isNullOrEmpty(conditions))
             return true;
+        if (this.stale) {
+            this.context.update();
+            this.stale = false;
+        }
         final Optional<Object> result = this.context.eval(conditions);
         return result.orElse(false);
     }
+
+    private static final class Dependency {
+        private final VariableSet<?> set;
+        private final Supplier<Object> reader;
+        private final IntArrayList dependents = new IntArrayList();
+        private Object value;
+
+        Dependency(@Nonnull final VariableSet<?> set, @Nonnull final Supplier<Object> reader) {
+            this.set = set;
+            this.reader = reader;
+        }
+
+        /**
+         * Reads the current value and returns true if it differs from the last one seen.
+         */
+        boolean sample() {
+            final Object v = this.reader.get();
+            // Only simple values can be compared, anything else is treated as changed
+            final boolean simple = v == null || v instanceof Number || v instanceof Boolean || v instanceof String || v instanceof Enum;
+            if (simple && Objects.equals(v, this.value))
+                return false;
+            this.value = v;
+            return true;
+        }
+    }
 }
@@ -33,10 +33,12 @@ public class AcousticEntry {
 
     private final IAcoustic acoustic;
     private final String conditions;
+    private final int conditionId;
 
     public AcousticEntry(@Nonnull final IAcoustic acoustic, @Nullable final String condition) {
         this.acoustic = acoustic;
         this.conditions = condition != null ? condition : StringUtils.EMPTY;
+        this.conditionId = ConditionEvaluator.INSTANCE.register(this.conditions);
     }
 
     @Nonnull
@@ -50,7 +52,7 @@ public class AcousticEntry {
     }
 
     public boolean matches() {
-        return ConditionEvaluator.INSTANCE.check(this.conditions);
+        return ConditionEvaluator.INSTANCE.check(this.conditionId);
     }
 
     protected String getConditionsForLogging() {
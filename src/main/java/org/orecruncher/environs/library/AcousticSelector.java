@@ -0,0 +1,158 @@
+/*
+ *  Dynamic Surroundings: Environs
+ *  Copyright (C) 2020  OreCruncher
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>
+ */
+
+
+package org.orecruncher.environs.library;
+
+import java.util.Collection;
+import java.util.Random;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import net.minecraftforge.api.distmarker.Dist;
+import net.minecraftforge.api.distmarker.OnlyIn;
+import org.orecruncher.lib.WeightTable;
+import org.orecruncher.sndctrl.api.acoustics.IAcoustic;
+
+/**
+ * Picks an acoustic from a list of weighted entries, leaving out the entries whose conditions do not match.
+ * The entries that match are tracked as a bit mask, and an alias table is built for each distinct mask the
+ * first time it is seen.  Picking from a table is constant time and does not allocate.
+ */
+@OnlyIn(Dist.CLIENT)
+final class AcousticSelector {
+
+	// Masks are a long so lists beyond this size are handled the old way
+	private static final int MAX_ENTRIES = 64;
+
+	private final WeightedAcousticEntry[] entries;
+	private final long unconditional;
+	private final Long2ObjectOpenHashMap<AliasTable> tables = new Long2ObjectOpenHashMap<>();
+
+	private long lastMask;
+	private AliasTable lastTable;
+
+	AcousticSelector(@Nonnull final Collection<WeightedAcousticEntry> entries) {
+		this.entries = entries.toArray(new WeightedAcousticEntry[0]);
+		long mask = 0;
+		for (int i = 0; i < this.entries.length && i < MAX_ENTRIES; i++)
+			if (this.entries[i].getConditions().isEmpty())
+				mask |= 1L << i;
+		this.unconditional = mask;
+	}
+
+	@Nullable
+	IAcoustic select(@Nonnull final Random random) {
+		if (this.entries.length > MAX_ENTRIES)
+			return selectLarge();
+
+		long mask = this.unconditional;
+		for (int i = 0; i < this.entries.length; i++) {
+			final long bit = 1L << i;
+			if ((mask & bit) == 0 && this.entries[i].matches())
+				mask |= bit;
+		}
+
+		if (mask == 0)
+			return null;
+
+		if (mask != this.lastMask || this.lastTable == null) {
+			AliasTable table = this.tables.get(mask);
+			if (table == null) {
+				table = new AliasTable(this.entries, mask);
+				this.tables.put(mask, table);
+			}
+			this.lastMask = mask;
+			this.lastTable = table;
+		}
+
+		return this.entries[this.lastTable.next(random)].getAcoustic();
+	}
+
+	@Nullable
+	private IAcoustic selectLarge() {
+		final WeightTable<IAcoustic> table = new WeightTable<>();
+		for (final WeightedAcousticEntry ae : this.entries)
+			if (ae.matches())
+				table.add(ae);
+		return table.next();
+	}
+
+	/**
+	 * Vose's alias method over the entries selected by a mask.
+	 */
+	private static final class AliasTable {
+
+		private final int[] index;
+		private final int[] alias;
+		private final double[] probability;
+
+		AliasTable(@Nonnull final WeightedAcousticEntry[] entries, final long mask) {
+			final int n = Long.bitCount(mask);
+			this.index = new int[n];
+			this.alias = new int[n];
+			this.probability = new double[n];
+
+			double total = 0;
+			for (int i = 0, k = 0; k < n; i++) {
+				if ((mask & (1L << i)) != 0) {
+					this.index[k++] = i;
+					total += Math.max(entries[i].getWeight(), 0);
+				}
+			}
+
+			final double[] scaled = new double[n];
+			final int[] small = new int[n];
+			final int[] large = new int[n];
+			int smallCount = 0;
+			int largeCount = 0;
+			for (int k = 0; k < n; k++) {
+				scaled[k] = total > 0 ? Math.max(entries[this.index[k]].getWeight(), 0) * n / total : 1D;
+				if (scaled[k] < 1D)
+					small[smallCount++] = k;
+				else
+					large[largeCount++] = k;
+			}
+
+			while (smallCount > 0 && largeCount > 0) {
+				final int s = small[--smallCount];
+				final int l = large[--largeCount];
+				this.probability[s] = scaled[s];
+				this.alias[s] = l;
+				scaled[l] = scaled[l] + scaled[s] - 1D;
+				if (scaled[l] < 1D)
+					small[smallCount++] = l;
+				else
+					large[largeCount++] = l;
+			}
+
+			// Whatever is left is full up to rounding
+			while (largeCount > 0)
+				this.probability[large[--largeCount]] = 1D;
+			while (smallCount > 0)
+				this.probability[small[--smallCount]] = 1D;
+		}
+
+		int next(@Nonnull final Random random) {
+			final int k = random.nextInt(this.index.length);
+			return this.index[random.nextDouble() < this.probability[k] ? k : this.alias[k]];
+		}
+	}
+}
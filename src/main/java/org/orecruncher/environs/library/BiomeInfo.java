@@ -28,10 +28,10 @@ import net.minecraftforge.api.distmarker.Dist;
 import net.minecraftforge.api.distmarker.OnlyIn;
 import org.apache.commons.lang3.StringUtils;
 import org.orecruncher.environs.Environs;
+import org.orecruncher.environs.handlers.scripts.ConditionEvaluator;
 import org.orecruncher.environs.library.config.BiomeConfig;
 import org.orecruncher.environs.library.config.AcousticConfig;
 import org.orecruncher.lib.Utilities;
-import org.orecruncher.lib.WeightTable;
 
 import net.minecraft.util.ResourceLocation;
 import net.minecraft.util.math.BlockPos;
@@ -66,6 +66,7 @@ public final class BiomeInfo implements Comparable<BiomeInfo> {
 
 	protected final ObjectArray<AcousticEntry> sounds = new ObjectArray<>();
 	protected final ObjectArray<WeightedAcousticEntry> spotSounds = new ObjectArray<>();
+	protected AcousticSelector spotSelector;
 	protected ObjectArray<String> comments = new ObjectArray<>();
 
 	protected final boolean isRiver;
@@ -219,12 +220,15 @@ public final class BiomeInfo implements Comparable<BiomeInfo> {
 	public IAcoustic getSpotSound(@Nonnull final Random random) {
 		if (this.spotSounds.size() == 0 || random.nextInt(this.spotSoundChance) != 0)
 			return null;
-		return new WeightTable<>(this.spotSounds.stream().filter(AcousticEntry::matches).collect(Collectors.toList())).next();
+		if (this.spotSelector == null)
+			this.spotSelector = new AcousticSelector(this.spotSounds);
+		return this.spotSelector.select(random);
 	}
 
 	void resetSounds() {
 		this.sounds.clear();
 		this.spotSounds.clear();
+		this.spotSelector = null;
 		this.spotSoundChance = DEFAULT_SPOT_CHANCE;
 	}
 
@@ -261,15 +265,19 @@ public final class BiomeInfo implements Comparable<BiomeInfo> {
 			setSpotSoundChance(entry.spotSoundChance);
 
 		for (final AcousticConfig sr : entry.acoustics) {
+			final String conditions = ConditionEvaluator.INSTANCE.simplify(sr.conditions);
+			if (conditions == null)
+				continue;
 			final ResourceLocation res = Library.resolveResource(Environs.MOD_ID, sr.acoustic);
 			final IAcoustic acoustic = Library.resolve(res, sr.acoustic);
 
 			if (sr.type.equalsIgnoreCase("spot")) {
 				final int weight = sr.weight;
-				final WeightedAcousticEntry acousticEntry = new WeightedAcousticEntry(acoustic, sr.conditions, weight);
+				final WeightedAcousticEntry acousticEntry = new WeightedAcousticEntry(acoustic, conditions, weight);
 				this.spotSounds.add(acousticEntry);
+				this.spotSelector = null;
 			} else {
-				final AcousticEntry acousticEntry = new AcousticEntry(acoustic, sr.conditions);
+				final AcousticEntry acousticEntry = new AcousticEntry(acoustic, conditions);
 				this.sounds.add(acousticEntry);
 			}
 		}
@@ -278,6 +286,7 @@ public final class BiomeInfo implements Comparable<BiomeInfo> {
 	public void trim() {
 		this.sounds.trim();
 		this.spotSounds.trim();
+		this.spotSelector = null;
 		this.comments = null;
 	}
 
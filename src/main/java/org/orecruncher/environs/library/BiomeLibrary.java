@@ -20,6 +20,7 @@ package org.orecruncher.environs.library;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -39,6 +40,7 @@ import org.orecruncher.lib.fml.ForgeUtils;
 import org.orecruncher.lib.logging.IModLog;
 import org.orecruncher.lib.math.MathStuff;
 
+import it.unimi.dsi.fastutil.ints.IntArrayList;
 import it.unimi.dsi.fastutil.objects.ObjectOpenHashSet;
 import net.minecraft.util.ResourceLocation;
 import net.minecraft.util.math.BlockPos;
@@ -99,19 +101,41 @@ public final class BiomeLibrary {
 		ForgeUtils.getBiomes().forEach(BiomeUtil::getBiomeData);
 	}
 
-	static void initFromConfig(@Nonnull final ModConfig cfg) {
+	static void initFromConfig(@Nonnull final ModConfig cfg, final int configIndex, @Nonnull final LibraryCache cache) {
 
 		if (cfg.biomes.size() > 0) {
-			final BiomeEvaluator evaluator = new BiomeEvaluator();
-			for (final BiomeInfo bi : getCombinedStream()) {
-				evaluator.update(bi);
-				for (final BiomeConfig c : cfg.biomes) {
-					if (evaluator.matches(c.conditions)) {
-						try {
-							bi.update(c);
-						} catch(@Nonnull final Throwable t) {
-							LOGGER.warn("Unable to process biome sound configuration [%s]", c.toString());
-						}
+			final List<BiomeInfo> biomes = new ArrayList<>(getCombinedStream());
+			final int[][] matches = new int[biomes.size()][];
+
+			// Condition results are cached between launches since evaluating them is expensive
+			final List<BiomeRules.Record> pending = new ArrayList<>();
+			for (int i = 0; i < biomes.size(); i++) {
+				matches[i] = cache.getBiomeMatches(configIndex, biomes.get(i));
+				if (matches[i] == null)
+					pending.add(new BiomeRules.Record(biomes.get(i)));
+			}
+
+			// The rules are matched in parallel.  Results are stored and applied on this thread in biome order.
+			if (!pending.isEmpty()) {
+				final BiomeRules rules = new BiomeRules(cfg.biomes);
+				final List<IntArrayList> results = pending.parallelStream().map(rules::match).collect(Collectors.toList());
+				for (int i = 0, p = 0; i < biomes.size(); i++) {
+					if (matches[i] == null) {
+						final IntArrayList list = results.get(p++);
+						cache.putBiomeMatches(configIndex, biomes.get(i), list);
+						matches[i] = list.toIntArray();
+					}
+				}
+			}
+
+			for (int i = 0; i < biomes.size(); i++) {
+				final BiomeInfo bi = biomes.get(i);
+				for (final int idx : matches[i]) {
+					final BiomeConfig c = cfg.biomes.get(idx);
+					try {
+						bi.update(c);
+					} catch(@Nonnull final Throwable t) {
+						LOGGER.warn("Unable to process biome sound configuration [%s]", c.toString());
 					}
 				}
 			}
@@ -162,7 +186,7 @@ public final class BiomeLibrary {
 		return info;
 	}
 
-	private static Collection<BiomeInfo> getCombinedStream() {
+	static Collection<BiomeInfo> getCombinedStream() {
 		return Stream.concat(
 				ForgeUtils.getBiomes().stream().map(BiomeUtil::getBiomeData),
 				theFakes.stream().map(FakeBiomeAdapter::getBiomeData)
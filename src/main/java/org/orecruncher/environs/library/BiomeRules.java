@@ -0,0 +1,143 @@
+/*
+ *  Dynamic Surroundings: Environs
+ *  Copyright (C) 2020  OreCruncher
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>
+ */
+
+
+package org.orecruncher.environs.library;
+
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import net.minecraftforge.api.distmarker.Dist;
+import net.minecraftforge.api.distmarker.OnlyIn;
+import net.minecraftforge.common.BiomeDictionary;
+import org.orecruncher.environs.handlers.scripts.ConditionCompiler;
+import org.orecruncher.environs.library.config.BiomeConfig;
+
+import javax.annotation.Nonnull;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BooleanSupplier;
+import java.util.function.Function;
+
+/**
+ * The biome rules of a config compiled into predicates over a typed biome record.  Matching is safe to call
+ * from multiple threads.  Rules the compiler does not support are handed to a shared script evaluator one
+ * at a time.
+ */
+@OnlyIn(Dist.CLIENT)
+final class BiomeRules {
+
+	// The record the predicates of the calling thread read from
+	private static final ThreadLocal<Record> CURRENT = new ThreadLocal<>();
+
+	private final List<BiomeConfig> configs;
+	private final BooleanSupplier[] rules;
+	private BiomeEvaluator fallback;
+
+	BiomeRules(@Nonnull final List<BiomeConfig> configs) {
+		this.configs = configs;
+		this.rules = new BooleanSupplier[configs.size()];
+
+		final Map<String, Function<Record, Object>> accessors = createAccessors();
+		for (int i = 0; i < this.rules.length; i++) {
+			final String conditions = configs.get(i).conditions;
+			if (conditions == null || conditions.length() == 0) {
+				this.rules[i] = () -> true;
+			} else {
+				// A null entry means the script engine has to evaluate the rule
+				this.rules[i] = ConditionCompiler.compile(conditions, (set, member, args, reference) -> {
+					if (!"biome".equals(set) || args != null)
+						return null;
+					final Function<Record, Object> accessor = accessors.get(member);
+					if (accessor == null)
+						return () -> null;
+					return () -> accessor.apply(CURRENT.get());
+				});
+			}
+		}
+	}
+
+	/**
+	 * Returns the indices of the rules that match the biome, in config order.
+	 */
+	@Nonnull
+	IntArrayList match(@Nonnull final Record record) {
+		final IntArrayList result = new IntArrayList();
+		CURRENT.set(record);
+		try {
+			for (int i = 0; i < this.rules.length; i++) {
+				final BooleanSupplier rule = this.rules[i];
+				if (rule != null ? rule.getAsBoolean() : evaluate(record, this.configs.get(i).conditions))
+					result.add(i);
+			}
+		} finally {
+			CURRENT.remove();
+		}
+		return result;
+	}
+
+	private synchronized boolean evaluate(@Nonnull final Record record, @Nonnull final String conditions) {
+		if (this.fallback == null)
+			this.fallback = new BiomeEvaluator();
+		this.fallback.update(record.info);
+		return this.fallback.matches(conditions);
+	}
+
+	@Nonnull
+	private static Map<String, Function<Record, Object>> createAccessors() {
+		final Map<String, Function<Record, Object>> accessors = new HashMap<>();
+		accessors.put("name", r -> r.name);
+		accessors.put("id", r -> r.id);
+		accessors.put("modid", r -> r.modid);
+		accessors.put("isFake", r -> r.fake);
+		accessors.put("temperature", r -> r.temperature);
+		accessors.put("rainfall", r -> r.rainfall);
+
+		for (final BiomeDictionary.Type t : BiomeUtil.getBiomeTypes()) {
+			final String name = "is" + t.getName().substring(0, 1).toUpperCase() + t.getName().substring(1).toLowerCase();
+			accessors.put(name, r -> r.types.contains(t));
+		}
+		return accessors;
+	}
+
+	/**
+	 * The properties of a biome that rules can test.  Captured up front so that matching does not touch
+	 * BiomeInfo.
+	 */
+	static final class Record {
+		final BiomeInfo info;
+		final String name;
+		final String id;
+		final String modid;
+		final boolean fake;
+		final float temperature;
+		final float rainfall;
+		final Set<BiomeDictionary.Type> types;
+
+		Record(@Nonnull final BiomeInfo info) {
+			this.info = info;
+			this.name = info.getBiomeName();
+			this.id = info.getKey().toString();
+			this.modid = info.getKey().getNamespace();
+			this.fake = info.isFake();
+			this.temperature = this.fake ? 0 : info.getTemperature();
+			this.rainfall = this.fake ? 0 : info.getRainfall();
+			this.types = info.getBiomeTypes();
+		}
+	}
+}
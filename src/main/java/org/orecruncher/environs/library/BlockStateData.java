@@ -27,7 +27,6 @@ import com.google.common.base.Joiner;
 import net.minecraftforge.api.distmarker.Dist;
 import net.minecraftforge.api.distmarker.OnlyIn;
 import org.orecruncher.environs.effects.BlockEffect;
-import org.orecruncher.lib.WeightTable;
 import org.orecruncher.lib.collections.ObjectArray;
 import org.orecruncher.sndctrl.api.acoustics.IAcoustic;
 
@@ -45,6 +44,7 @@ public class BlockStateData {
 	protected int chance = 100;
 	protected boolean hasSoundsAndEffects;
 	protected boolean hasAlwaysOn;
+	protected AcousticSelector selector;
 
 	public void setChance(final int chance) {
 		this.chance = chance;
@@ -56,10 +56,12 @@ public class BlockStateData {
 
 	public void addSound(@Nonnull final WeightedAcousticEntry sound) {
 		this.sounds.add(sound);
+		this.selector = null;
 	}
 
 	public void clearSounds() {
 		this.sounds.clear();
+		this.selector = null;
 	}
 
 	@Nonnull
@@ -91,11 +93,9 @@ public class BlockStateData {
 
 	public IAcoustic getSoundToPlay(@Nonnull final Random random) {
 		if (this.sounds.size() > 0 && random.nextInt(getChance()) == 0) {
-			final WeightTable<IAcoustic> table = new WeightTable<>();
-			for (final WeightedAcousticEntry ae : this.sounds)
-				if (ae.matches())
-					table.add(ae);
-			return table.next();
+			if (this.selector == null)
+				this.selector = new AcousticSelector(this.sounds);
+			return this.selector.select(random);
 		}
 		return null;
 	}
@@ -0,0 +1,102 @@
+/*
+ *  Dynamic Surroundings: Environs
+ *  Copyright (C) 2020  OreCruncher
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>
+ */
+
+
+package org.orecruncher.environs.library;
+
+import net.minecraft.block.AbstractFurnaceBlock;
+import net.minecraft.block.Block;
+import net.minecraft.block.BlockState;
+import net.minecraft.block.Blocks;
+import net.minecraft.fluid.IFluidState;
+import net.minecraft.tags.FluidTags;
+import net.minecraftforge.api.distmarker.Dist;
+import net.minecraftforge.api.distmarker.OnlyIn;
+import net.minecraftforge.event.TagsUpdatedEvent;
+import net.minecraftforge.eventbus.api.SubscribeEvent;
+import net.minecraftforge.fml.common.Mod;
+import org.orecruncher.environs.Environs;
+import org.orecruncher.lib.fml.ForgeUtils;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Classifications of block states used by the jet effects, computed once per block state id.  The
+ * table is built when the libraries complete and rebuilt when tags are reloaded since some of the
+ * classifications are tag based.
+ */
+@OnlyIn(Dist.CLIENT)
+@Mod.EventBusSubscriber(modid = Environs.MOD_ID, value = Dist.CLIENT, bus = Mod.EventBusSubscriber.Bus.FORGE)
+public final class BlockStateFlags {
+
+    public static final int FLUID = 1;
+    public static final int LAVA = 1 << 1;
+    public static final int WATER = 1 << 2;
+    public static final int SOLID = 1 << 3;
+    public static final int LIT_FURNACE = 1 << 4;
+    public static final int HOT = 1 << 5;
+
+    private static int[] flags = new int[0];
+
+    private BlockStateFlags() {
+
+    }
+
+    /**
+     * Determines if the block state has any of the specified flags.
+     */
+    public static boolean test(@Nonnull final BlockState state, final int mask) {
+        final int[] table = flags;
+        final int id = BlockStateUtil.getStateId(state);
+        final int f = id >= 0 && id < table.length ? table[id] : compute(state);
+        return (f & mask) != 0;
+    }
+
+    static void rebuild() {
+        int max = -1;
+        for (final BlockState state : ForgeUtils.getBlockStates())
+            max = Math.max(max, Block.getStateId(state));
+        final int[] table = new int[max + 1];
+        for (final BlockState state : ForgeUtils.getBlockStates())
+            table[Block.getStateId(state)] = compute(state);
+        flags = table;
+    }
+
+    private static int compute(@Nonnull final BlockState state) {
+        int result = 0;
+        final IFluidState fluid = state.getFluidState();
+        if (!fluid.isEmpty())
+            result |= FLUID;
+        if (fluid.isTagged(FluidTags.LAVA))
+            result |= LAVA;
+        if (fluid.isTagged(FluidTags.WATER))
+            result |= WATER;
+        if (state.getMaterial().isSolid())
+            result |= SOLID;
+        if (state.getBlock() instanceof AbstractFurnaceBlock && state.get(AbstractFurnaceBlock.LIT))
+            result |= LIT_FURNACE;
+        if ((result & (LAVA | LIT_FURNACE)) != 0 || state.getBlock() == Blocks.MAGMA_BLOCK)
+            result |= HOT;
+        return result;
+    }
+
+    @SubscribeEvent
+    public static void onTagsUpdated(@Nonnull final TagsUpdatedEvent event) {
+        rebuild();
+    }
+}
@@ -19,6 +19,7 @@
 package org.orecruncher.environs.library;
 
 import com.google.common.collect.ImmutableList;
+import it.unimi.dsi.fastutil.objects.ReferenceOpenHashSet;
 import net.minecraft.block.Block;
 import net.minecraft.block.BlockState;
 import net.minecraft.block.Blocks;
@@ -29,6 +30,7 @@ import net.minecraftforge.api.distmarker.OnlyIn;
 import org.apache.commons.lang3.StringUtils;
 import org.orecruncher.environs.Environs;
 import org.orecruncher.environs.effects.BlockEffectType;
+import org.orecruncher.environs.handlers.scripts.ConditionEvaluator;
 import org.orecruncher.environs.library.config.AcousticConfig;
 import org.orecruncher.environs.library.config.BlockConfig;
 import org.orecruncher.environs.library.config.EffectConfig;
@@ -43,6 +45,7 @@ import org.orecruncher.sndctrl.api.acoustics.Library;
 
 import javax.annotation.Nonnull;
 import java.util.Collection;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @OnlyIn(Dist.CLIENT)
@@ -53,11 +56,15 @@ public final class BlockStateLibrary {
     private static final IModLog LOGGER = Environs.LOGGER.createChild(BlockStateLibrary.class);
     private static final BlockStateMatcherMap<BlockStateData> registry = new BlockStateMatcherMap<>();
 
+    // Block states that have always on effects.  Used by scanners to quickly rule out chunk sections.
+    private static Set<BlockState> alwaysOnStates = new ReferenceOpenHashSet<>();
+
     private BlockStateLibrary() {
 
     }
 
     static void initialize() {
+        BlockStateUtil.clearTable();
         ForgeUtils.getBlockStates().forEach(state -> BlockStateUtil.setData(state, null));
         BlockStateUtil.setData(Blocks.AIR.getDefaultState(), BlockStateData.DEFAULT);
         BlockStateUtil.setData(Blocks.CAVE_AIR.getDefaultState(), BlockStateData.DEFAULT);
@@ -72,6 +79,18 @@ public final class BlockStateLibrary {
         final int blockStates = (int) ForgeUtils.getBlockStates().stream().map(BlockStateUtil::getData).count();
         LOGGER.info("%d block states processed, %d registry entries", blockStates, registry.size());
         ForgeUtils.getBlockStates().stream().map(BlockStateUtil::getData).forEach(BlockStateData::trim);
+
+        alwaysOnStates = ForgeUtils.getBlockStates().stream()
+                .filter(state -> BlockStateUtil.getData(state).hasAlwaysOnEffects())
+                .collect(Collectors.toCollection(ReferenceOpenHashSet::new));
+        LOGGER.info("%d block states have always on effects", alwaysOnStates.size());
+
+        BlockStateUtil.buildTable(ForgeUtils.getBlockStates());
+        BlockStateFlags.rebuild();
+    }
+
+    public static boolean hasAlwaysOnEffects(@Nonnull final BlockState state) {
+        return alwaysOnStates.contains(state);
     }
 
     @Nonnull
@@ -111,11 +130,12 @@ public final class BlockStateLibrary {
                     blockData.setChance(entry.chance);
 
                 for (final AcousticConfig sr : entry.acoustics) {
-                    if (sr.acoustic != null) {
+                    final String conditions = ConditionEvaluator.INSTANCE.simplify(sr.conditions);
+                    if (sr.acoustic != null && conditions != null) {
                         final ResourceLocation res = Library.resolveResource(Environs.MOD_ID, sr.acoustic);
                         final IAcoustic acoustic = Library.resolve(res, sr.acoustic);
                         final int weight = sr.weight;
-                        final WeightedAcousticEntry acousticEntry = new WeightedAcousticEntry(acoustic, sr.conditions, weight);
+                        final WeightedAcousticEntry acousticEntry = new WeightedAcousticEntry(acoustic, conditions, weight);
                         blockData.addSound(acousticEntry);
                     }
                 }
@@ -123,6 +143,9 @@ public final class BlockStateLibrary {
                 for (final EffectConfig e : entry.effects) {
                     if (StringUtils.isEmpty(e.effect))
                         continue;
+                    final String conditions = ConditionEvaluator.INSTANCE.simplify(e.conditions);
+                    if (conditions == null)
+                        continue;
                     final BlockEffectType type = BlockEffectType.get(e.effect);
                     if (type == BlockEffectType.UNKNOWN) {
                         LOGGER.warn("Unknown block effect type in configuration: [%s]", e.effect);
@@ -130,8 +153,7 @@ public final class BlockStateLibrary {
                         final int chance = e.chance != null ? e.chance : 100;
                         type.getInstance(chance).ifPresent(
                                 be -> {
-                                    if (e.conditions != null)
-                                        be.setConditions(e.conditions);
+                                    be.setConditions(conditions);
                                     blockData.addEffect(be);
                                 });
                     }
@@ -18,6 +18,7 @@
 
 package org.orecruncher.environs.library;
 
+import net.minecraft.block.Block;
 import net.minecraft.block.BlockState;
 import net.minecraftforge.api.distmarker.Dist;
 import net.minecraftforge.api.distmarker.OnlyIn;
@@ -25,6 +26,8 @@ import org.orecruncher.lib.reflection.ObjectField;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
+import java.util.Collection;
+import java.util.function.Function;
 
 @OnlyIn(Dist.CLIENT)
 public final class BlockStateUtil {
@@ -39,8 +42,26 @@ public final class BlockStateUtil {
                     "environs_blockData"
             );
 
+    // Dense table of the data indexed by global block state id.  Built when the library completes so that
+    // lookups avoid going through the reflected field.
+    private static BlockStateData[] byStateId = new BlockStateData[0];
+
     @Nonnull
     public static BlockStateData getData(@Nonnull final BlockState state) {
+        final BlockStateData[] table = byStateId;
+        if (table.length > 0) {
+            final int id = getStateId(state);
+            if (id >= 0 && id < table.length) {
+                final BlockStateData data = table[id];
+                if (data != null)
+                    return data;
+            }
+        }
+        return getFieldData(state);
+    }
+
+    @Nonnull
+    static BlockStateData getFieldData(@Nonnull final BlockState state) {
         BlockStateData profile = environs_blockData.get(state);
         if (profile == null) {
             profile = BlockStateLibrary.get(state);
@@ -52,6 +73,42 @@ public final class BlockStateUtil {
     public static void setData(@Nonnull final BlockState state, @Nullable final BlockStateData data) {
         //noinspection ConstantConditions
         environs_blockData.set(state, data);
+        final int id = getStateId(state);
+        if (id >= 0 && id < byStateId.length)
+            byStateId[id] = data;
+    }
+
+    /**
+     * Global id of the block state, or -1 if it is not registered.  Block.getStateId() reports 0, which is
+     * air's id, for states it does not know about.
+     */
+    static int getStateId(@Nonnull final BlockState state) {
+        final int id = Block.getStateId(state);
+        return Block.getStateById(id) == state ? id : -1;
+    }
+
+    /**
+     * Builds the state id table from the data currently assigned to the block states.
+     */
+    static void buildTable(@Nonnull final Collection<BlockState> states) {
+        buildTable(states, BlockStateUtil::getFieldData);
+    }
+
+    /**
+     * Builds the state id table with the data provided by the function.
+     */
+    static void buildTable(@Nonnull final Collection<BlockState> states, @Nonnull final Function<BlockState, BlockStateData> source) {
+        int max = -1;
+        for (final BlockState state : states)
+            max = Math.max(max, Block.getStateId(state));
+        final BlockStateData[] table = new BlockStateData[max + 1];
+        for (final BlockState state : states)
+            table[Block.getStateId(state)] = source.apply(state);
+        byStateId = table;
+    }
+
+    static void clearTable() {
+        byStateId = new BlockStateData[0];
     }
 
 }
@@ -22,12 +22,16 @@ import net.minecraft.util.ResourceLocation;
 import net.minecraftforge.api.distmarker.Dist;
 import net.minecraftforge.api.distmarker.OnlyIn;
 import org.orecruncher.environs.Environs;
+import org.orecruncher.environs.handlers.scripts.ConditionEvaluator;
 import org.orecruncher.environs.library.config.ModConfig;
 import org.orecruncher.lib.JsonUtils;
 import org.orecruncher.lib.fml.ForgeUtils;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.stream.Collectors;
 
 @OnlyIn(Dist.CLIENT)
 public final class Libraries {
@@ -56,20 +60,41 @@ public final class Libraries {
         installed.remove("minecraft");
         installed.add(0, "minecraft");
 
-        for (final String loc : configLocations) {
-            for (final String id : installed) {
-                try {
-                    final String resource = String.format("%s/%s.json", Environs.MOD_ID, id);
-                    final ResourceLocation res = new ResourceLocation(loc, resource);
-                    final ModConfig mod = JsonUtils.load(res, ModConfig.class);
-                    DimensionLibrary.initFromConfig(mod);
-                    BiomeLibrary.initFromConfig(mod);
-                    BlockStateLibrary.initFromConfig(mod);
-                } catch (@Nonnull final Throwable t) {
-                    Environs.LOGGER.error(t, "Unable to load '%s.json' config data!", id);
-                }
+        // Locating and parsing the configs is done in parallel.  The results are applied in the same order they
+        // are listed so that overrides behave the same regardless of how the loading is scheduled.
+        final List<ResourceLocation> resources = new ArrayList<>(configLocations.size() * installed.size());
+        for (final String loc : configLocations)
+            for (final String id : installed)
+                resources.add(new ResourceLocation(loc, String.format("%s/%s.json", Environs.MOD_ID, id)));
+
+        final List<ModConfig> configs = resources.parallelStream()
+                .map(Libraries::load)
+                .collect(Collectors.toList());
+
+        final LibraryCache cache = LibraryCache.open(configs);
+
+        for (int i = 0; i < configs.size(); i++) {
+            final ModConfig mod = configs.get(i);
+            if (mod != null) {
+                DimensionLibrary.initFromConfig(mod);
+                BiomeLibrary.initFromConfig(mod, i, cache);
+                BlockStateLibrary.initFromConfig(mod);
             }
         }
+
+        ConditionEvaluator.INSTANCE.report();
+
+        cache.save();
+    }
+
+    @Nullable
+    private static ModConfig load(@Nonnull final ResourceLocation res) {
+        try {
+            return JsonUtils.load(res, ModConfig.class);
+        } catch (@Nonnull final Throwable t) {
+            Environs.LOGGER.error(t, "Unable to load '%s' config data!", res.toString());
+        }
+        return null;
     }
 
     public static void complete() {
@@ -0,0 +1,182 @@
+/*
+ *  Dynamic Surroundings: Environs
+ *  Copyright (C) 2020  OreCruncher
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>
+ */
+
+
+package org.orecruncher.environs.library;
+
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.google.gson.Gson;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.objects.Object2ObjectOpenHashMap;
+import net.minecraftforge.api.distmarker.Dist;
+import net.minecraftforge.api.distmarker.OnlyIn;
+import net.minecraftforge.common.BiomeDictionary;
+import net.minecraftforge.fml.ModList;
+import net.minecraftforge.forgespi.language.IModInfo;
+import org.orecruncher.environs.Environs;
+import org.orecruncher.environs.library.config.ModConfig;
+import org.orecruncher.lib.logging.IModLog;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Persists the outcome of the expensive decisions made while building the libraries so they can be reused
+ * on the next launch.  The cache is keyed by a hash of the installed mods and their versions, the properties
+ * of the biomes the conditions are evaluated against, and the content of the configs being applied; if anything changes the cache is discarded and rebuilt.
+ *
+ * Currently this holds the biome condition results: for each config, biome, and the config entries that
+ * matched.  Evaluating the conditions runs the script engine for every biome and entry and is the bulk of the
+ * library build time.
+ */
+@OnlyIn(Dist.CLIENT)
+final class LibraryCache {
+
+    private static final IModLog LOGGER = Environs.LOGGER.createChild(LibraryCache.class);
+    private static final int FORMAT = 2;
+    private static final Path CACHE_FILE = Environs.CONFIG_PATH.resolve("library.cache");
+
+    private final String hash;
+    private final Map<String, int[]> biomeMatches = new Object2ObjectOpenHashMap<>();
+    private boolean dirty;
+
+    private LibraryCache(@Nonnull final String hash) {
+        this.hash = hash;
+    }
+
+    /**
+     * Opens the cache for the configs that are about to be applied.  If the cache on disk was built from the
+     * same inputs its content is loaded, otherwise the returned cache starts out empty.
+     */
+    @Nonnull
+    static LibraryCache open(@Nonnull final List<ModConfig> configs) {
+        final LibraryCache cache = new LibraryCache(computeHash(configs));
+        if (Files.exists(CACHE_FILE)) {
+            try (final DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(CACHE_FILE)))) {
+                if (in.readInt() == FORMAT && cache.hash.equals(in.readUTF())) {
+                    final int count = in.readInt();
+                    for (int i = 0; i < count; i++) {
+                        final String key = in.readUTF();
+                        final int[] matches = new int[in.readInt()];
+                        for (int j = 0; j < matches.length; j++)
+                            matches[j] = in.readInt();
+                        cache.biomeMatches.put(key, matches);
+                    }
+                    LOGGER.info("Using library cache (%d biome entries)", count);
+                } else {
+                    LOGGER.info("Library cache is out of date; rebuilding");
+                }
+            } catch (@Nonnull final Throwable t) {
+                LOGGER.warn("Unable to read library cache: %s", t.getMessage());
+                cache.biomeMatches.clear();
+            }
+        }
+        return cache;
+    }
+
+    /**
+     * Writes the cache if anything was added since it was opened.
+     */
+    void save() {
+        if (!this.dirty)
+            return;
+        try {
+            Files.createDirectories(CACHE_FILE.getParent());
+            try (final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(CACHE_FILE)))) {
+                out.writeInt(FORMAT);
+                out.writeUTF(this.hash);
+                out.writeInt(this.biomeMatches.size());
+                for (final Map.Entry<String, int[]> e : this.biomeMatches.entrySet()) {
+                    out.writeUTF(e.getKey());
+                    out.writeInt(e.getValue().length);
+                    for (final int m : e.getValue())
+                        out.writeInt(m);
+                }
+            }
+            this.dirty = false;
+        } catch (@Nonnull final Throwable t) {
+            LOGGER.warn("Unable to write library cache: %s", t.getMessage());
+        }
+    }
+
+    /**
+     * Indexes of the biome entries of the config that matched the biome, or null if not cached.
+     */
+    @Nullable
+    int[] getBiomeMatches(final int config, @Nonnull final BiomeInfo biome) {
+        return this.biomeMatches.get(biomeKey(config, biome));
+    }
+
+    void putBiomeMatches(final int config, @Nonnull final BiomeInfo biome, @Nonnull final IntArrayList matches) {
+        this.biomeMatches.put(biomeKey(config, biome), matches.toIntArray());
+        this.dirty = true;
+    }
+
+    @Nonnull
+    private static String biomeKey(final int config, @Nonnull final BiomeInfo biome) {
+        return config + "|" + biome.getKey().toString();
+    }
+
+    @Nonnull
+    private static String computeHash(@Nonnull final List<ModConfig> configs) {
+        final Hasher hasher = Hashing.sha256().newHasher();
+        hasher.putInt(FORMAT);
+
+        ModList.get().getMods().stream()
+                .sorted(Comparator.comparing(IModInfo::getModId))
+                .forEach(mod -> {
+                    hasher.putString(mod.getModId(), StandardCharsets.UTF_8);
+                    hasher.putString(mod.getVersion().toString(), StandardCharsets.UTF_8);
+                });
+
+        // The biome conditions only see what is in a record so that is what decides whether cached matches
+        // still hold.
+        BiomeLibrary.getCombinedStream().stream()
+                .map(BiomeRules.Record::new)
+                .sorted(Comparator.comparing((BiomeRules.Record r) -> r.id))
+                .forEach(r -> {
+                    hasher.putString(r.id, StandardCharsets.UTF_8);
+                    hasher.putString(r.name, StandardCharsets.UTF_8);
+                    hasher.putBoolean(r.fake);
+                    hasher.putFloat(r.temperature);
+                    hasher.putFloat(r.rainfall);
+                    r.types.stream()
+                            .map(BiomeDictionary.Type::getName)
+                            .sorted()
+                            .forEach(t -> hasher.putString(t, StandardCharsets.UTF_8));
+                    hasher.putInt(r.types.size());
+                });
+
+        // Serializing the parsed configs captures their content, and their position in the list captures the
+        // order they are applied in.
+        final Gson gson = new Gson();
+        for (final ModConfig cfg : configs) {
+            hasher.putString(cfg == null ? "null" : gson.toJson(cfg), StandardCharsets.UTF_8);
+        }
+
+        return hasher.hash().toString();
+    }
+}
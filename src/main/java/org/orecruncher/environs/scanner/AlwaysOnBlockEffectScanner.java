@@ -23,8 +23,12 @@ import java.util.Random;
 
 import javax.annotation.Nonnull;
 
+import it.unimi.dsi.fastutil.longs.LongIterator;
+import it.unimi.dsi.fastutil.longs.LongSet;
 import net.minecraft.block.BlockState;
+import net.minecraft.util.math.ChunkPos;
 import net.minecraft.world.IBlockReader;
+import net.minecraft.world.chunk.IChunk;
 import net.minecraftforge.api.distmarker.Dist;
 import net.minecraftforge.api.distmarker.OnlyIn;
 import net.minecraft.util.math.BlockPos;
@@ -37,13 +41,19 @@ import org.orecruncher.environs.library.BlockStateUtil;
  *
  * The CuboidScanner tries to only scan new blocks that come into range as the
  * player moves. Once all the blocks are scanned in the region (cuboid) it will
- * stop. It will start again once the player moves location.
+ * stop. It will start again once the player moves location. Rather than reading
+ * blocks the chunk sections are looked up in an index of always on positions
+ * that is maintained as chunks load and blocks change.
  */
 @OnlyIn(Dist.CLIENT)
 public class AlwaysOnBlockEffectScanner extends CuboidScanner {
 
+	protected final AlwaysOnEffectIndex index;
+	protected final BlockPos.MutableBlockPos indexPos = new BlockPos.MutableBlockPos();
+
 	public AlwaysOnBlockEffectScanner(@Nonnull final ScanContext locus, final int range) {
 		super(locus, "AlwaysOnBlockEffectScanner", range, 0);
+		this.index = new AlwaysOnEffectIndex(locus);
 	}
 
 	@Override
@@ -51,14 +61,96 @@ public class AlwaysOnBlockEffectScanner extends CuboidScanner {
 		return BlockStateUtil.getData(state).hasAlwaysOnEffects();
 	}
 
+	@Override
+	protected void resetFullScan() {
+		// Dimension change means what has been indexed is no longer valid
+		if (this.locus.getReference() != this.lastReference)
+			this.index.clear();
+		super.resetFullScan();
+	}
+
+	@Override
+	protected boolean walkSection(@Nonnull final SectionPointIterator section) {
+		// Chunks that loaded before the scanner started are indexed as the scan reaches them.  The section
+		// itself and any indexing are charged against the blocks per tick so the work is spread over ticks.
+		charge(1 + this.index.ensureIndexed(section.getSectionX(), section.getSectionZ()));
+		final LongSet positions = this.index.getPositions(section.getSectionX(), section.getSectionY(), section.getSectionZ());
+		if (positions != null) {
+			final IBlockReader provider = this.locus.getWorld();
+			final LongIterator itr = positions.iterator();
+			int read = 0;
+			int hits = 0;
+			while (itr.hasNext()) {
+				this.indexPos.setPos(itr.nextLong());
+				if (this.indexPos.getY() > 0 && section.contains(this.indexPos.getX(), this.indexPos.getY(), this.indexPos.getZ())) {
+					read++;
+					final BlockState state = provider.getBlockState(this.indexPos);
+					if (interestingBlock(state)) {
+						hits++;
+						blockScan(state, this.indexPos, this.random);
+					}
+				}
+			}
+			this.stats.blocks(read, hits);
+			charge(read);
+		}
+
+		// The index covered everything so there is no need to walk the blocks
+		return false;
+	}
+
+	/**
+	 * Indexes a chunk that has been loaded. Blocks within the scan area are processed since
+	 * they could not have been seen before.
+	 */
+	public void onChunkLoad(@Nonnull final IChunk chunk) {
+		final ChunkPos cp = chunk.getPos();
+		this.index.index(chunk);
+		if (this.activeCuboid == null)
+			return;
+		// Read from the chunk itself; the world may not hand it out until the load completes
+		for (int sy = 0; sy < 16; sy++) {
+			final LongSet positions = this.index.getPositions(cp.x, sy, cp.z);
+			if (positions == null)
+				continue;
+			final LongIterator itr = positions.iterator();
+			while (itr.hasNext()) {
+				this.indexPos.setPos(itr.nextLong());
+				if (this.indexPos.getY() > 0 && this.activeCuboid.contains(this.indexPos)) {
+					final BlockState state = chunk.getBlockState(this.indexPos);
+					if (interestingBlock(state))
+						blockScan(state, this.indexPos, this.random);
+				}
+			}
+		}
+	}
+
+	public void onChunkUnload(@Nonnull final IChunk chunk) {
+		final ChunkPos cp = chunk.getPos();
+		this.index.remove(cp.x, cp.z);
+	}
+
+	@Override
+	public void onBlockUpdate(@Nonnull final BlockPos pos) {
+		try {
+			final BlockState state = this.locus.getWorld().getBlockState(pos);
+			if (this.index.update(pos, state) && isInteresting(pos, state))
+				blockScan(state, pos, this.random);
+		} catch (final Throwable t) {
+			this.locus.getLogger().error(t, "onBlockUpdate() error");
+		}
+	}
+
 	@Override
 	public void blockScan(@Nonnull final BlockState state, @Nonnull final BlockPos pos, @Nonnull final Random rand) {
 		final IBlockReader provider = this.locus.getWorld();
 		final Collection<BlockEffect> effects = BlockStateUtil.getData(state).getAlwaysOnEffects();
 		for (final BlockEffect be : effects) {
-			if (be.canTrigger(provider, state, pos, rand))
+			if (be.canTrigger(provider, state, pos, rand)) {
 				be.doEffect(provider, state, pos, rand);
+				this.stats.effect();
+			}
  		}
 	}
 
-}
+}
\ No newline at end of file
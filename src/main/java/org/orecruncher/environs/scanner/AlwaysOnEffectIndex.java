@@ -0,0 +1,171 @@
+/*
+ *  Dynamic Surroundings: Environs
+ *  Copyright (C) 2020  OreCruncher
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>
+ */
+
+
+package org.orecruncher.environs.scanner;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import it.unimi.dsi.fastutil.longs.LongSet;
+import net.minecraft.block.BlockState;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkPos;
+import net.minecraft.util.math.SectionPos;
+import net.minecraft.world.World;
+import net.minecraft.world.chunk.Chunk;
+import net.minecraft.world.chunk.ChunkSection;
+import net.minecraft.world.chunk.EmptyChunk;
+import net.minecraft.world.chunk.IChunk;
+import net.minecraftforge.api.distmarker.Dist;
+import net.minecraftforge.api.distmarker.OnlyIn;
+import org.orecruncher.environs.library.BlockStateLibrary;
+
+/**
+ * Index of the block positions that have always on effects, keyed by chunk section. A chunk is indexed once
+ * when it loads (or when the scan first reaches it) and is kept current by block updates. Positions are
+ * stored in BlockPos.toLong() format.
+ */
+@OnlyIn(Dist.CLIENT)
+public final class AlwaysOnEffectIndex {
+
+	private final ScanContext locus;
+	private final Long2ObjectOpenHashMap<LongOpenHashSet> sections = new Long2ObjectOpenHashMap<>();
+	private final LongOpenHashSet chunks = new LongOpenHashSet();
+
+	public AlwaysOnEffectIndex(@Nonnull final ScanContext locus) {
+		this.locus = locus;
+	}
+
+	/**
+	 * Indexes the chunk if it is loaded and has not been indexed. Returns the number of block states read,
+	 * which is 0 if nothing needed to be done.
+	 */
+	public int ensureIndexed(final int chunkX, final int chunkZ) {
+		if (this.chunks.contains(ChunkPos.asLong(chunkX, chunkZ)))
+			return 0;
+		final World world = this.locus.getChunkProvider();
+		if (world == null)
+			return 0;
+		final Chunk chunk = world.getChunk(chunkX, chunkZ);
+		if (chunk instanceof EmptyChunk)
+			return 0;
+		return index(chunk);
+	}
+
+	/**
+	 * Obtains the positions within the specified chunk section that have always on effects. Returns null if
+	 * there is nothing of interest in the section or the chunk has not been indexed.
+	 */
+	@Nullable
+	public LongSet getPositions(final int sectionX, final int sectionY, final int sectionZ) {
+		return this.sections.get(SectionPos.asLong(sectionX, sectionY, sectionZ));
+	}
+
+	/**
+	 * Indexes the chunk, replacing whatever information was previously held. Returns the number of block
+	 * states read.
+	 */
+	public int index(@Nonnull final IChunk chunk) {
+		final ChunkPos cp = chunk.getPos();
+		remove(cp.x, cp.z);
+
+		int read = 0;
+		final ChunkSection[] chunkSections = chunk.getSections();
+		for (int sy = 0; sy < chunkSections.length; sy++) {
+			final ChunkSection section = chunkSections[sy];
+			if (!SectionPalette.mayContain(section, BlockStateLibrary::hasAlwaysOnEffects))
+				continue;
+
+			final int baseX = cp.x << 4;
+			final int baseY = sy << 4;
+			final int baseZ = cp.z << 4;
+
+			read += 16 * 16 * 16;
+			LongOpenHashSet positions = null;
+			for (int y = 0; y < 16; y++)
+				for (int z = 0; z < 16; z++)
+					for (int x = 0; x < 16; x++) {
+						final BlockState state = section.getBlockState(x, y, z);
+						if (BlockStateLibrary.hasAlwaysOnEffects(state)) {
+							if (positions == null)
+								positions = new LongOpenHashSet();
+							positions.add(BlockPos.pack(baseX + x, baseY + y, baseZ + z));
+						}
+					}
+
+			if (positions != null)
+				this.sections.put(SectionPos.asLong(cp.x, sy, cp.z), positions);
+		}
+
+		this.chunks.add(cp.asLong());
+		return read;
+	}
+
+	/**
+	 * Drops all information about the specified chunk.
+	 */
+	public void remove(final int chunkX, final int chunkZ) {
+		if (this.chunks.remove(ChunkPos.asLong(chunkX, chunkZ))) {
+			for (int sy = 0; sy < 16; sy++)
+				this.sections.remove(SectionPos.asLong(chunkX, sy, chunkZ));
+		}
+	}
+
+	/**
+	 * Updates the index with the new state of the block at the specified position. Returns true if the block
+	 * has always on effects.
+	 */
+	public boolean update(@Nonnull final BlockPos pos, @Nonnull final BlockState state) {
+		final boolean interesting = BlockStateLibrary.hasAlwaysOnEffects(state);
+		final int sectionX = pos.getX() >> 4;
+		final int sectionZ = pos.getZ() >> 4;
+
+		// If the chunk hasn't been indexed it will be picked up when it is
+		if (!this.chunks.contains(ChunkPos.asLong(sectionX, sectionZ)))
+			return interesting;
+
+		final long key = SectionPos.asLong(sectionX, pos.getY() >> 4, sectionZ);
+		LongOpenHashSet positions = this.sections.get(key);
+		if (interesting) {
+			if (positions == null)
+				this.sections.put(key, positions = new LongOpenHashSet());
+			positions.add(pos.toLong());
+		} else if (positions != null) {
+			positions.remove(pos.toLong());
+			if (positions.isEmpty())
+				this.sections.remove(key);
+		}
+		return interesting;
+	}
+
+	public void clear() {
+		this.sections.clear();
+		this.chunks.clear();
+	}
+
+	public int getChunkCount() {
+		return this.chunks.size();
+	}
+
+	public int getSectionCount() {
+		return this.sections.size();
+	}
+}
@@ -0,0 +1,260 @@
+/*
+ *  Dynamic Surroundings: Environs
+ *  Copyright (C) 2020  OreCruncher
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>
+ */
+
+
+package org.orecruncher.environs.scanner;
+
+import it.unimi.dsi.fastutil.objects.Reference2IntOpenHashMap;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.world.IEnviromentBlockReader;
+import net.minecraftforge.api.distmarker.Dist;
+import net.minecraftforge.api.distmarker.OnlyIn;
+import org.orecruncher.environs.library.BiomeInfo;
+import org.orecruncher.environs.library.BiomeUtil;
+
+import javax.annotation.Nonnull;
+import java.util.Arrays;
+
+/**
+ * Player centered grid of the biomes in the surrounding area.  The grid is held in a ring buffer so that as the
+ * player moves only the strips entering the area are sampled.  Consumers survey the area through windows which
+ * maintain a running histogram of the biomes within their radius.
+ */
+@OnlyIn(Dist.CLIENT)
+public final class BiomeGrid {
+
+	public static final BiomeGrid INSTANCE = new BiomeGrid();
+
+	// Sized to the largest consumer which is the fog color blend at the max render distance
+	public static final int RANGE = 34;
+	private static final int DIMENSION = RANGE * 2 + 1;
+
+	private final BlockPos.MutableBlockPos mutable = new BlockPos.MutableBlockPos();
+	private final BiomeInfo[] grid = new BiomeInfo[DIMENSION * DIMENSION];
+	private Window[] windows = new Window[0];
+
+	private boolean valid;
+	private int dimension;
+	private int centerX;
+	private int centerZ;
+
+	// Row of the grid to resample on the next tick.  Picks up biome data of chunks that loaded after they were
+	// first sampled.
+	private int refreshRow;
+
+	private BiomeGrid() {
+
+	}
+
+	/**
+	 * Creates a window over the grid with the specified radius.  Windows are released when the grid is reset so
+	 * they need to be created again when connecting to a server.
+	 */
+	@Nonnull
+	public Window createWindow(final int radius) {
+		final Window window = new Window(radius);
+		this.windows = Arrays.copyOf(this.windows, this.windows.length + 1);
+		this.windows[this.windows.length - 1] = window;
+		window.rebuild();
+		return window;
+	}
+
+	/**
+	 * Invalidates the grid and releases the windows.
+	 */
+	public void reset() {
+		this.valid = false;
+		this.windows = new Window[0];
+		Arrays.fill(this.grid, null);
+	}
+
+	public void tick(@Nonnull final IEnviromentBlockReader provider, final int dimId, final int x, final int z) {
+		if (!this.valid
+				|| this.dimension != dimId
+				|| Math.abs(x - this.centerX) >= DIMENSION
+				|| Math.abs(z - this.centerZ) >= DIMENSION) {
+			rebuild(provider, dimId, x, z);
+			return;
+		}
+
+		while (this.centerX != x)
+			stepX(provider, this.centerX < x ? 1 : -1);
+		while (this.centerZ != z)
+			stepZ(provider, this.centerZ < z ? 1 : -1);
+
+		final int row = this.centerZ - RANGE + this.refreshRow;
+		for (int i = this.centerX - RANGE; i <= this.centerX + RANGE; i++)
+			refresh(provider, i, row);
+		this.refreshRow = (this.refreshRow + 1) % DIMENSION;
+	}
+
+	private void rebuild(@Nonnull final IEnviromentBlockReader provider, final int dimId, final int x, final int z) {
+		this.valid = true;
+		this.dimension = dimId;
+		this.centerX = x;
+		this.centerZ = z;
+		this.refreshRow = 0;
+
+		for (int k = z - RANGE; k <= z + RANGE; k++)
+			for (int i = x - RANGE; i <= x + RANGE; i++)
+				this.grid[index(i, k)] = sample(provider, i, k);
+
+		for (final Window w : this.windows)
+			w.rebuild();
+	}
+
+	// Moves the grid one block along X.  Windows drop their trailing column before the grid overwrites it.
+	private void stepX(@Nonnull final IEnviromentBlockReader provider, final int dir) {
+		for (final Window w : this.windows)
+			w.column(this.centerX - dir * w.radius, -1);
+		final int edge = this.centerX + dir * (RANGE + 1);
+		for (int k = this.centerZ - RANGE; k <= this.centerZ + RANGE; k++)
+			this.grid[index(edge, k)] = sample(provider, edge, k);
+		this.centerX += dir;
+		for (final Window w : this.windows)
+			w.column(this.centerX + dir * w.radius, 1);
+	}
+
+	private void stepZ(@Nonnull final IEnviromentBlockReader provider, final int dir) {
+		for (final Window w : this.windows)
+			w.row(this.centerZ - dir * w.radius, -1);
+		final int edge = this.centerZ + dir * (RANGE + 1);
+		for (int i = this.centerX - RANGE; i <= this.centerX + RANGE; i++)
+			this.grid[index(i, edge)] = sample(provider, i, edge);
+		this.centerZ += dir;
+		for (final Window w : this.windows)
+			w.row(this.centerZ + dir * w.radius, 1);
+	}
+
+	private void refresh(@Nonnull final IEnviromentBlockReader provider, final int x, final int z) {
+		final int idx = index(x, z);
+		final BiomeInfo info = sample(provider, x, z);
+		final BiomeInfo old = this.grid[idx];
+		if (old != info) {
+			this.grid[idx] = info;
+			for (final Window w : this.windows)
+				w.replace(x, z, old, info);
+		}
+	}
+
+	@Nonnull
+	private BiomeInfo sample(@Nonnull final IEnviromentBlockReader provider, final int x, final int z) {
+		this.mutable.setPos(x, 0, z);
+		return BiomeUtil.getBiomeData(provider.getBiome(this.mutable));
+	}
+
+	private static int index(final int x, final int z) {
+		return Math.floorMod(z, DIMENSION) * DIMENSION + Math.floorMod(x, DIMENSION);
+	}
+
+	/**
+	 * Square area of the grid centered on the player.
+	 */
+	public final class Window {
+
+		private final Reference2IntOpenHashMap<BiomeInfo> biomes = new Reference2IntOpenHashMap<>(8);
+		private int radius;
+		private int area;
+		private int version;
+
+		private Window(final int radius) {
+			this.radius = clampRadius(radius);
+		}
+
+		public int getRadius() {
+			return this.radius;
+		}
+
+		public void setRadius(final int radius) {
+			final int r = clampRadius(radius);
+			if (r != this.radius) {
+				this.radius = r;
+				rebuild();
+			}
+		}
+
+		/**
+		 * Number of blocks surveyed by the window.  Will be 0 if the grid has not been populated.
+		 */
+		public int getArea() {
+			return this.area;
+		}
+
+		/**
+		 * Count of each biome within the window.  Biomes that are not present do not have an entry.
+		 */
+		@Nonnull
+		public Reference2IntOpenHashMap<BiomeInfo> getBiomes() {
+			return this.biomes;
+		}
+
+		/**
+		 * Changes each time the content of the window changes.  Consumers can use it to determine if derived
+		 * values need to be recalculated.
+		 */
+		public int getVersion() {
+			return this.version;
+		}
+
+		private void rebuild() {
+			this.biomes.clear();
+			this.area = 0;
+			if (BiomeGrid.this.valid) {
+				final int cx = BiomeGrid.this.centerX;
+				final int cz = BiomeGrid.this.centerZ;
+				for (int k = cz - this.radius; k <= cz + this.radius; k++)
+					for (int i = cx - this.radius; i <= cx + this.radius; i++)
+						this.biomes.addTo(BiomeGrid.this.grid[index(i, k)], 1);
+				final int d = this.radius * 2 + 1;
+				this.area = d * d;
+			}
+			this.version++;
+		}
+
+		private void column(final int x, final int delta) {
+			final int cz = BiomeGrid.this.centerZ;
+			for (int k = cz - this.radius; k <= cz + this.radius; k++)
+				adjust(BiomeGrid.this.grid[index(x, k)], delta);
+			this.version++;
+		}
+
+		private void row(final int z, final int delta) {
+			final int cx = BiomeGrid.this.centerX;
+			for (int i = cx - this.radius; i <= cx + this.radius; i++)
+				adjust(BiomeGrid.this.grid[index(i, z)], delta);
+			this.version++;
+		}
+
+		private void replace(final int x, final int z, @Nonnull final BiomeInfo old, @Nonnull final BiomeInfo info) {
+			if (Math.abs(x - BiomeGrid.this.centerX) <= this.radius && Math.abs(z - BiomeGrid.this.centerZ) <= this.radius) {
+				adjust(old, -1);
+				adjust(info, 1);
+				this.version++;
+			}
+		}
+
+		private void adjust(@Nonnull final BiomeInfo info, final int delta) {
+			if (this.biomes.addTo(info, delta) + delta == 0)
+				this.biomes.removeInt(info);
+		}
+
+		private int clampRadius(final int radius) {
+			return Math.max(0, Math.min(radius, RANGE));
+		}
+	}
+}
@@ -16,74 +16,49 @@
  * along with this program.  If not, see <https://www.gnu.org/licenses/>
  */
 
+
 package org.orecruncher.environs.scanner;
 
 import it.unimi.dsi.fastutil.objects.Reference2IntOpenHashMap;
-import net.minecraft.world.IEnviromentBlockReader;
-import net.minecraft.world.IWorldReader;
 import net.minecraftforge.api.distmarker.Dist;
 import net.minecraftforge.api.distmarker.OnlyIn;
 
-import net.minecraft.util.math.BlockPos;
-import net.minecraft.world.biome.Biome;
 import org.orecruncher.environs.handlers.CommonState;
 import org.orecruncher.environs.library.BiomeInfo;
-import org.orecruncher.environs.library.BiomeUtil;
-import org.orecruncher.lib.GameUtils;
-import org.orecruncher.lib.TickCounter;
 
 /**
  * Performs an area scan around the to calculate the relative weights of the
- * biomes in the local area.
+ * biomes in the local area.  The survey is a window over the shared biome grid.
  */
 @OnlyIn(Dist.CLIENT)
 public final class BiomeScanner {
 
 	private static final int BIOME_SURVEY_RANGE = 18;
-	private static final int MAX_BIOME_AREA = (int) Math.pow(BIOME_SURVEY_RANGE * 2 + 1, 2);
 
-	private final BlockPos.MutableBlockPos mutable = new BlockPos.MutableBlockPos();
+	private final Reference2IntOpenHashMap<BiomeInfo> fake = new Reference2IntOpenHashMap<>(1);
 
+	private BiomeGrid.Window window;
 	private int biomeArea;
-	private Reference2IntOpenHashMap<BiomeInfo> weights = new Reference2IntOpenHashMap<>(8);
+	private Reference2IntOpenHashMap<BiomeInfo> weights = this.fake;
 
-	// "Finger print" of the last area survey.
-	private BiomeInfo surveyedBiome = null;
-	private int surveyedDimension = 0;
-	private BlockPos surveyedPosition = BlockPos.ZERO;
+	/**
+	 * Acquires a new window on the biome grid.  Needs to be called on connect.
+	 */
+	public void reset() {
+		this.window = BiomeGrid.INSTANCE.createWindow(BIOME_SURVEY_RANGE);
+	}
 
 	public void tick() {
-		final BlockPos position = CommonState.getPlayerPosition();
 		final BiomeInfo playerBiome = CommonState.getPlayerBiome();
-		final int dimId = CommonState.getDimensionId();
-
-		if (this.surveyedBiome != playerBiome
-				|| this.surveyedDimension != dimId
-				|| this.surveyedPosition.compareTo(position) != 0
-				|| TickCounter.getTickCount() % 20 == 0) {
-
-			this.surveyedBiome = playerBiome;
-			this.surveyedDimension = dimId;
-			this.surveyedPosition = position;
-
-			this.biomeArea = 0;
-			this.weights = new Reference2IntOpenHashMap<>(8);
 
-			if (playerBiome.isFake()) {
-				this.biomeArea = 1;
-				this.weights.put(playerBiome, 1);
-			} else {
-				final IEnviromentBlockReader provider = CommonState.getBlockReader();
-				for (int dZ = -BIOME_SURVEY_RANGE; dZ <= BIOME_SURVEY_RANGE; dZ++) {
-					for (int dX = -BIOME_SURVEY_RANGE; dX <= BIOME_SURVEY_RANGE; dX++) {
-						this.mutable.setPos(this.surveyedPosition.getX() + dX, 0, this.surveyedPosition.getZ() + dZ);
-						final Biome biome = provider.getBiome(this.mutable);
-						final BiomeInfo info = BiomeUtil.getBiomeData(biome);
-						this.weights.addTo(info, 1);
-					}
-				}
-				this.biomeArea = MAX_BIOME_AREA;
-			}
+		if (playerBiome.isFake() || this.window == null) {
+			this.fake.clear();
+			this.fake.put(playerBiome, 1);
+			this.weights = this.fake;
+			this.biomeArea = 1;
+		} else {
+			this.weights = this.window.getBiomes();
+			this.biomeArea = this.window.getArea();
 		}
 	}
 
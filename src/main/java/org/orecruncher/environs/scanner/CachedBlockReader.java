@@ -0,0 +1,169 @@
+/*
+ *  Dynamic Surroundings: Environs
+ *  Copyright (C) 2020  OreCruncher
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>
+ */
+
+
+package org.orecruncher.environs.scanner;
+
+import java.util.Arrays;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import net.minecraft.block.BlockState;
+import net.minecraft.block.Blocks;
+import net.minecraft.fluid.IFluidState;
+import net.minecraft.tileentity.TileEntity;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkPos;
+import net.minecraft.world.IEnviromentBlockReader;
+import net.minecraft.world.LightType;
+import net.minecraft.world.World;
+import net.minecraft.world.biome.Biome;
+import net.minecraft.world.chunk.Chunk;
+import net.minecraft.world.chunk.ChunkSection;
+import net.minecraft.world.chunk.EmptyChunk;
+import net.minecraftforge.api.distmarker.Dist;
+import net.minecraftforge.api.distmarker.OnlyIn;
+
+/**
+ * Block reader that remembers the chunks it has recently looked up so that the scanners and effects, which
+ * read many blocks close to each other, don't go through the chunk map for every read. The cache holds
+ * chunk references so it has to be reset each tick to let go of chunks that have been unloaded. Chunks that
+ * are not loaded and sections that do not exist are never cached so a chunk that arrives between resets is
+ * seen right away. Intended for use on the client thread only.
+ */
+@OnlyIn(Dist.CLIENT)
+public final class CachedBlockReader implements IEnviromentBlockReader {
+
+	private static final BlockState AIR = Blocks.AIR.getDefaultState();
+	private static final BlockState VOID_AIR = Blocks.VOID_AIR.getDefaultState();
+
+	// Direct mapped on the low 2 bits of the chunk X and Z
+	private static final int CACHE_SIZE = 16;
+
+	private final World world;
+	private final long[] keys = new long[CACHE_SIZE];
+	private final Chunk[] chunks = new Chunk[CACHE_SIZE];
+
+	// The last section read from; most reads land in the same section as the one before
+	private int lastX = Integer.MIN_VALUE;
+	private int lastY;
+	private int lastZ;
+	private ChunkSection lastSection;
+
+	public CachedBlockReader(@Nonnull final World world) {
+		this.world = world;
+	}
+
+	public boolean needsUpdate(@Nullable final World world) {
+		return this.world != world;
+	}
+
+	/**
+	 * Drops the cached chunk references.
+	 */
+	public void reset() {
+		Arrays.fill(this.chunks, null);
+		this.lastX = Integer.MIN_VALUE;
+		this.lastSection = null;
+	}
+
+	@Nonnull
+	public Chunk getChunk(final int chunkX, final int chunkZ) {
+		final int slot = (chunkX & 3) | ((chunkZ & 3) << 2);
+		final long key = ChunkPos.asLong(chunkX, chunkZ);
+		Chunk chunk = this.chunks[slot];
+		if (chunk == null || this.keys[slot] != key) {
+			chunk = this.world.getChunk(chunkX, chunkZ);
+			if (chunk instanceof EmptyChunk)
+				return chunk;
+			this.chunks[slot] = chunk;
+			this.keys[slot] = key;
+		}
+		return chunk;
+	}
+
+	@Override
+	@Nonnull
+	public BlockState getBlockState(@Nonnull final BlockPos pos) {
+		return getBlockState(pos.getX(), pos.getY(), pos.getZ());
+	}
+
+	@Nonnull
+	public BlockState getBlockState(final int x, final int y, final int z) {
+		if (y < 0 || y > 255)
+			return VOID_AIR;
+
+		final int sx = x >> 4;
+		final int sy = y >> 4;
+		final int sz = z >> 4;
+
+		ChunkSection section = this.lastSection;
+		if (section == null || sx != this.lastX || sy != this.lastY || sz != this.lastZ) {
+			section = getChunk(sx, sz).getSections()[sy];
+			if (section != null) {
+				this.lastX = sx;
+				this.lastY = sy;
+				this.lastZ = sz;
+				this.lastSection = section;
+			}
+		}
+
+		if (ChunkSection.isEmpty(section))
+			return AIR;
+		return section.getBlockState(x & 15, y & 15, z & 15);
+	}
+
+	/**
+	 * Reads the block states for the positions, which are in BlockPos.toLong() format. Reads are fastest when
+	 * positions in the same chunk section are next to each other.
+	 */
+	public void getBlockStates(@Nonnull final long[] packedPositions, @Nonnull final BlockState[] out) {
+		getBlockStates(packedPositions, Math.min(packedPositions.length, out.length), out);
+	}
+
+	public void getBlockStates(@Nonnull final long[] packedPositions, final int count, @Nonnull final BlockState[] out) {
+		for (int i = 0; i < count; i++) {
+			final long packed = packedPositions[i];
+			out[i] = getBlockState(BlockPos.unpackX(packed), BlockPos.unpackY(packed), BlockPos.unpackZ(packed));
+		}
+	}
+
+	@Override
+	@Nonnull
+	public IFluidState getFluidState(@Nonnull final BlockPos pos) {
+		return getBlockState(pos).getFluidState();
+	}
+
+	@Override
+	@Nullable
+	public TileEntity getTileEntity(@Nonnull final BlockPos pos) {
+		return this.world.getTileEntity(pos);
+	}
+
+	@Override
+	@Nonnull
+	public Biome getBiome(@Nonnull final BlockPos pos) {
+		return getChunk(pos.getX() >> 4, pos.getZ() >> 4).getBiome(pos);
+	}
+
+	@Override
+	public int getLightFor(@Nonnull final LightType type, @Nonnull final BlockPos pos) {
+		return this.world.getLightFor(type, pos);
+	}
+}
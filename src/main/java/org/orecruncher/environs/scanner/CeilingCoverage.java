@@ -19,6 +19,7 @@
 package org.orecruncher.environs.scanner;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 
@@ -38,11 +39,15 @@ import org.orecruncher.lib.math.MathStuff;
 
 import net.minecraft.util.math.BlockPos;
 import net.minecraft.util.math.Vec3i;
+import net.minecraft.world.IBlockReader;
 import net.minecraft.world.World;
+import net.minecraft.world.chunk.IChunk;
 
 /**
  * Performs area scanning around the player to determine area ceiling coverage.
- * Used to determine if the player is "inside" or "outside".
+ * Used to determine if the player is "inside" or "outside".  The highest cover
+ * block of each column is cached so that the survey does not have to rescan
+ * the columns every interval.
  */
 @OnlyIn(Dist.CLIENT)
 public final class CeilingCoverage {
@@ -71,17 +76,20 @@ public final class CeilingCoverage {
 		TOTAL_POINTS = totalPoints;
 	}
 
+	private final ColumnCache columns = new ColumnCache();
 	private boolean reallyInside = false;
 
 	public void tick() {
 		if (TickCounter.getTickCount() % SURVEY_INTERVAL == 0) {
-			final DimensionInfo dimInfo = DimensionLibrary.getData(GameUtils.getWorld());
+			final World world = GameUtils.getWorld();
+			final DimensionInfo dimInfo = DimensionLibrary.getData(world);
 			if (dimInfo.getId() == -1 || dimInfo.alwaysOutside()) {
 				this.reallyInside = false;
 			} else {
+				this.columns.setWorld(world);
 				final BlockPos pos = CommonState.getPlayerPosition();
 				float score = 0.0F;
-				for (Cell cell : cells) score += cell.score(pos);
+				for (Cell cell : cells) score += cell.score(pos, this.columns);
 				float ceilingCoverageRatio = 1.0F - (score / TOTAL_POINTS);
 				this.reallyInside = ceilingCoverageRatio > INSIDE_THRESHOLD;
 			}
@@ -92,11 +100,101 @@ public final class CeilingCoverage {
 		return this.reallyInside;
 	}
 
+	/**
+	 * Invalidates the cached column of the block position.
+	 */
+	public void onBlockUpdate(@Nonnull final BlockPos pos) {
+		this.columns.invalidate(pos.getX(), pos.getZ());
+	}
+
+	/**
+	 * Invalidates the cached columns of a chunk that has been loaded.  Columns read before the chunk arrived
+	 * saw nothing.
+	 */
+	public void onChunkLoad(@Nonnull final IChunk chunk) {
+		this.columns.invalidateChunk(chunk.getPos().x, chunk.getPos().z);
+	}
+
+	/**
+	 * Direct mapped cache of the highest cover block in a column.  A column is scanned downward from the
+	 * precipitation height only as far as needed to answer whether there is cover above the player, and the scan
+	 * is resumed from where it left off if the player drops lower.
+	 */
+	private static final class ColumnCache {
+
+		private static final int SIZE = 16;
+		private static final int MASK = SIZE - 1;
+		private static final int NO_COVER = Integer.MIN_VALUE;
+
+		private final int[] tagX = new int[SIZE * SIZE];
+		private final int[] tagZ = new int[SIZE * SIZE];
+		private final boolean[] valid = new boolean[SIZE * SIZE];
+		// Highest cover block found, or NO_COVER
+		private final int[] cover = new int[SIZE * SIZE];
+		// Lowest Y that has been scanned without finding cover
+		private final int[] floor = new int[SIZE * SIZE];
+		private final BlockPos.MutableBlockPos working = new BlockPos.MutableBlockPos();
+
+		private World world;
+
+		public void setWorld(@Nonnull final World world) {
+			if (this.world != world) {
+				this.world = world;
+				Arrays.fill(this.valid, false);
+			}
+		}
+
+		public void invalidate(final int x, final int z) {
+			final int idx = index(x, z);
+			if (this.tagX[idx] == x && this.tagZ[idx] == z)
+				this.valid[idx] = false;
+		}
+
+		public void invalidateChunk(final int chunkX, final int chunkZ) {
+			for (int i = 0; i < this.valid.length; i++)
+				if ((this.tagX[i] >> 4) == chunkX && (this.tagZ[i] >> 4) == chunkZ)
+					this.valid[i] = false;
+		}
+
+		public boolean isCovered(final int x, final int z, final int playerHeight) {
+			final int idx = index(x, z);
+			if (!this.valid[idx] || this.tagX[idx] != x || this.tagZ[idx] != z) {
+				this.working.setPos(x, 0, z);
+				this.tagX[idx] = x;
+				this.tagZ[idx] = z;
+				this.valid[idx] = true;
+				this.cover[idx] = NO_COVER;
+				this.floor[idx] = WorldUtils.getPrecipitationHeight(this.world, this.working).getY() + 1;
+			}
+
+			if (this.cover[idx] == NO_COVER && this.floor[idx] > playerHeight + 1) {
+				final IBlockReader reader = CommonState.getBlockReader();
+				int y = this.floor[idx] - 1;
+				for (; y > playerHeight; y--) {
+					this.working.setPos(x, y, z);
+					final BlockState state = reader.getBlockState(this.working);
+					if (state.getMaterial().blocksMovement() && !state.isIn(BlockTags.LEAVES)) {
+						this.cover[idx] = y;
+						break;
+					}
+				}
+				// The loop stops at the player's head without reading it
+				if (this.cover[idx] == NO_COVER)
+					this.floor[idx] = y + 1;
+			}
+
+			return this.cover[idx] > playerHeight;
+		}
+
+		private static int index(final int x, final int z) {
+			return ((z & MASK) << 4) | (x & MASK);
+		}
+	}
+
 	private static final class Cell implements Comparable<Cell> {
 
 		private final Vec3i offset;
 		private final float points;
-		private final BlockPos.MutableBlockPos working;
 
 		public Cell(@Nonnull final Vec3i offset, final int range) {
 			this.offset = offset;
@@ -104,40 +202,20 @@ public final class CeilingCoverage {
 			final float zV = range - MathStuff.abs(offset.getZ()) + 1;
 			final float candidate = Math.min(xV, zV);
 			this.points = candidate * candidate;
-			this.working = new BlockPos.MutableBlockPos();
 		}
 
 		public float potentialPoints() {
 			return this.points;
 		}
 
-		public float score(@Nonnull final BlockPos playerPos) {
-			this.working.setPos(
-					playerPos.getX() + this.offset.getX(),
-					playerPos.getY() + this.offset.getY(),
-					playerPos.getZ() + this.offset.getZ()
-				);
-
-			final World world = GameUtils.getWorld();
+		public float score(@Nonnull final BlockPos playerPos, @Nonnull final ColumnCache columns) {
 			final int playerHeight = Math.max(playerPos.getY() + 1, 0);
 
-			// Get the precipitation height
-			this.working.setPos(WorldUtils.getPrecipitationHeight(world, this.working));
-
-			// Scan down looking for blocks that are considered "cover"
-			while (this.working.getY() > playerHeight) {
-
-				final BlockState state = world.getBlockState(this.working);
-
-				if (state.getMaterial().blocksMovement() && !state.isIn(BlockTags.LEAVES)) {
-					// Cover block - no points for you!
-					return 0;
-				}
-
-				this.working.setY(this.working.getY() - 1);
-			}
+			// Cover block above the players head - no points for you!
+			if (columns.isCovered(playerPos.getX() + this.offset.getX(), playerPos.getZ() + this.offset.getZ(), playerHeight))
+				return 0;
 
-			// Scanned down to the players head and found nothing. So give the points.
+			// Nothing considered cover between the sky and the players head. So give the points.
 			return this.points;
 		}
 
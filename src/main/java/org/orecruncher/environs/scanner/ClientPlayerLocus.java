@@ -23,6 +23,7 @@ import net.minecraftforge.api.distmarker.OnlyIn;
 
 import org.orecruncher.environs.Environs;
 import org.orecruncher.environs.handlers.CommonState;
+import org.orecruncher.lib.GameUtils;
 
 @OnlyIn(Dist.CLIENT)
 public class ClientPlayerLocus extends ScanContext {
@@ -32,7 +33,8 @@ public class ClientPlayerLocus extends ScanContext {
 				CommonState::getBlockReader,
 				CommonState::getPlayerPosition,
 				() -> Environs.LOGGER,
-				CommonState::getDimensionId
+				CommonState::getDimensionId,
+				GameUtils::getWorld
 		);
 	}
 
@@ -16,86 +16,106 @@
  * along with this program.  If not, see <https://www.gnu.org/licenses/>
  */
 
+
 package org.orecruncher.environs.scanner;
 
 import net.minecraft.util.math.BlockPos;
 import net.minecraftforge.api.distmarker.Dist;
 import net.minecraftforge.api.distmarker.OnlyIn;
-import org.orecruncher.lib.BlockPosUtil;
 
 import javax.annotation.Nonnull;
-import javax.annotation.Nullable;
 
+/**
+ * Axis aligned cuboid described by its inclusive min/max corners. Instances can be reset so they can be
+ * reused as the scan area moves rather than reallocated.
+ */
 @OnlyIn(Dist.CLIENT)
 public class Cuboid {
 
-    protected final BlockPos[] vertices = new BlockPos[8];
-    protected final int volume;
-    protected final BlockPos minPoint;
-    protected final BlockPos maxPoint;
+    protected int minX;
+    protected int minY;
+    protected int minZ;
+    protected int maxX;
+    protected int maxY;
+    protected int maxZ;
+    protected long volume;
+
+    public Cuboid() {
+    }
 
     public Cuboid(@Nonnull final BlockPos[] points) {
         this(points[0], points[1]);
     }
 
     public Cuboid(@Nonnull final BlockPos vx1, @Nonnull final BlockPos vx2) {
+        set(vx1.getX(), vx1.getY(), vx1.getZ(), vx2.getX(), vx2.getY(), vx2.getZ());
+    }
 
-        this.minPoint = BlockPosUtil.createMinPoint(vx1, vx2);
-        this.maxPoint = BlockPosUtil.createMaxPoint(vx1, vx2);
-
-        final BlockPos t = this.maxPoint.subtract(this.minPoint);
-        this.volume = t.getX() * t.getY() * t.getZ();
-
-        this.vertices[0] = this.minPoint;
-        this.vertices[1] = this.maxPoint;
-        this.vertices[2] = new BlockPos(this.minPoint.getX(), this.maxPoint.getY(), this.maxPoint.getZ());
-        this.vertices[3] = new BlockPos(this.maxPoint.getX(), this.minPoint.getY(), this.minPoint.getZ());
-        this.vertices[4] = new BlockPos(this.maxPoint.getX(), this.minPoint.getY(), this.maxPoint.getZ());
-        this.vertices[5] = new BlockPos(this.minPoint.getX(), this.minPoint.getY(), this.maxPoint.getZ());
-        this.vertices[6] = new BlockPos(this.minPoint.getX(), this.maxPoint.getY(), this.minPoint.getZ());
-        this.vertices[7] = new BlockPos(this.maxPoint.getX(), this.maxPoint.getY(), this.minPoint.getZ());
+    /**
+     * Sets the corners of the cuboid. The points can be any two opposing corners.
+     */
+    @Nonnull
+    public Cuboid set(final int x1, final int y1, final int z1, final int x2, final int y2, final int z2) {
+        this.minX = Math.min(x1, x2);
+        this.minY = Math.min(y1, y2);
+        this.minZ = Math.min(z1, z2);
+        this.maxX = Math.max(x1, x2);
+        this.maxY = Math.max(y1, y2);
+        this.maxZ = Math.max(z1, z2);
+        this.volume = (long) (this.maxX - this.minX) * (this.maxY - this.minY) * (this.maxZ - this.minZ);
+        return this;
     }
 
     public boolean contains(@Nonnull final BlockPos p) {
-        return BlockPosUtil.contains(p, this.minPoint, this.maxPoint);
+        return contains(p.getX(), p.getY(), p.getZ());
+    }
+
+    public boolean contains(final int x, final int y, final int z) {
+        return x >= this.minX && x <= this.maxX && y >= this.minY && y <= this.maxY && z >= this.minZ && z <= this.maxZ;
     }
 
+    /**
+     * Creates a new BlockPos for the maximum corner.  Use the coordinate getters where garbage matters.
+     */
     @Nonnull
     public BlockPos maximum() {
-        return this.maxPoint;
+        return new BlockPos(this.maxX, this.maxY, this.maxZ);
     }
 
+    /**
+     * Creates a new BlockPos for the minimum corner.  Use the coordinate getters where garbage matters.
+     */
     @Nonnull
     public BlockPos minimum() {
-        return this.minPoint;
+        return new BlockPos(this.minX, this.minY, this.minZ);
     }
 
-    public long volume() {
-        return this.volume;
+    public int getMinX() {
+        return this.minX;
     }
 
-    @Nullable
-    public Cuboid intersection(@Nonnull final Cuboid o) {
-        BlockPos vx1 = null;
-        for (final BlockPos vx : this.vertices) {
-            if (o.contains(vx)) {
-                vx1 = vx;
-                break;
-            }
-        }
-
-        if (vx1 == null)
-            return null;
-
-        BlockPos vx2 = null;
-        for (final BlockPos vx : o.vertices) {
-            if (contains(vx) && BlockPosUtil.canFormCuboid(vx, vx1)) {
-                vx2 = vx;
-                break;
-            }
-        }
-
-        return vx2 == null ? null : new Cuboid(vx1, vx2);
+    public int getMinY() {
+        return this.minY;
+    }
+
+    public int getMinZ() {
+        return this.minZ;
+    }
+
+    public int getMaxX() {
+        return this.maxX;
+    }
+
+    public int getMaxY() {
+        return this.maxY;
+    }
+
+    public int getMaxZ() {
+        return this.maxZ;
+    }
+
+    public long volume() {
+        return this.volume;
     }
 
-}
\ No newline at end of file
+}
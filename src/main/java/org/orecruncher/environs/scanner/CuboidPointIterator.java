@@ -16,9 +16,8 @@
  * along with this program.  If not, see <https://www.gnu.org/licenses/>
  */
 
-package org.orecruncher.environs.scanner;
 
-import java.util.Iterator;
+package org.orecruncher.environs.scanner;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
@@ -27,35 +26,36 @@ import net.minecraftforge.api.distmarker.Dist;
 import net.minecraftforge.api.distmarker.OnlyIn;
 
 import net.minecraft.util.math.BlockPos;
-import net.minecraft.util.math.BlockPos.MutableBlockPos;
-import org.orecruncher.lib.BlockPosUtil;
 
 /**
  * Implements a "peeking" iterator. The iterator uses mutables for position so
- * they aren't safe to cache.
+ * they aren't safe to cache. Coordinates are walked as primitives and the
+ * iterator can be reset, so walking a cuboid does not generate garbage.
  */
 @OnlyIn(Dist.CLIENT)
 public class CuboidPointIterator implements IPointIterator {
 
-	static final CuboidPointIterator NULL_ITERATOR = new CuboidPointIterator() {
-
-		@Override
-		public BlockPos next() {
-			return null;
-		}
-
-		@Override
-		public BlockPos peek() {
-			return null;
-		}
-
-	};
-
-	protected final Iterator<MutableBlockPos> itr;
-	protected BlockPos peeked;
-
-	private CuboidPointIterator() {
-		this.itr = null;
+	// Bounds of the cuboid, inclusive
+	protected int minX;
+	protected int minY;
+	protected int minZ;
+	protected int maxX;
+	protected int maxY;
+	protected int maxZ;
+
+	// Next point to be served up
+	protected int x;
+	protected int y;
+	protected int z;
+	protected boolean hasNext;
+
+	protected final BlockPos.MutableBlockPos peeked = new BlockPos.MutableBlockPos();
+	protected final BlockPos.MutableBlockPos current = new BlockPos.MutableBlockPos();
+
+	/**
+	 * Creates an iterator with nothing to walk.  Use reset() to give it a cuboid.
+	 */
+	public CuboidPointIterator() {
 	}
 
 	public CuboidPointIterator(@Nonnull final BlockPos[] points) {
@@ -63,24 +63,75 @@ public class CuboidPointIterator implements IPointIterator {
 	}
 
 	public CuboidPointIterator(@Nonnull final BlockPos p1, @Nonnull final BlockPos p2) {
-		// The getAllInBox() deals with figuring the min/max points
-		this.itr = BlockPosUtil.getAllInBoxMutable(p1, p2).iterator();
-		if (this.itr.hasNext())
-			this.peeked = this.itr.next();
+		reset(p1.getX(), p1.getY(), p1.getZ(), p2.getX(), p2.getY(), p2.getZ());
+	}
+
+	/**
+	 * Sets the cuboid to walk and restarts the iteration. The points can be any
+	 * two opposing corners.
+	 */
+	@Nonnull
+	public CuboidPointIterator reset(final int x1, final int y1, final int z1, final int x2, final int y2, final int z2) {
+		this.minX = Math.min(x1, x2);
+		this.minY = Math.min(y1, y2);
+		this.minZ = Math.min(z1, z2);
+		this.maxX = Math.max(x1, x2);
+		this.maxY = Math.max(y1, y2);
+		this.maxZ = Math.max(z1, z2);
+		start();
+		return this;
+	}
+
+	@Nonnull
+	public CuboidPointIterator reset(@Nonnull final Cuboid cuboid) {
+		return reset(cuboid.getMinX(), cuboid.getMinY(), cuboid.getMinZ(), cuboid.getMaxX(), cuboid.getMaxY(), cuboid.getMaxZ());
+	}
+
+	/**
+	 * Drops any remaining points so the iterator is exhausted.
+	 */
+	@Nonnull
+	public CuboidPointIterator clear() {
+		this.hasNext = false;
+		return this;
 	}
 
 	@Override
 	@Nullable
 	public BlockPos next() {
-		final BlockPos result = this.peeked;
-		this.peeked = this.itr.hasNext() ? this.itr.next() : null;
-		return result;
+		if (!this.hasNext)
+			return null;
+		this.current.setPos(this.x, this.y, this.z);
+		advance();
+		return this.current;
 	}
 
 	@Override
 	@Nullable
 	public BlockPos peek() {
-		return this.peeked;
+		return this.hasNext ? this.peeked.setPos(this.x, this.y, this.z) : null;
+	}
+
+	/**
+	 * Positions the iterator at the first point of the cuboid.
+	 */
+	protected void start() {
+		this.x = this.minX;
+		this.y = this.minY;
+		this.z = this.minZ;
+		this.hasNext = true;
+	}
+
+	protected void advance() {
+		if (++this.x <= this.maxX)
+			return;
+		this.x = this.minX;
+		if (++this.z <= this.maxZ)
+			return;
+		this.z = this.minZ;
+		if (++this.y <= this.maxY)
+			return;
+		this.hasNext = false;
 	}
 
 }
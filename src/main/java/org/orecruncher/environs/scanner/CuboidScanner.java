@@ -16,6 +16,7 @@
  * along with this program.  If not, see <https://www.gnu.org/licenses/>
  */
 
+
 package org.orecruncher.environs.scanner;
 
 import java.util.Random;
@@ -23,22 +24,63 @@ import java.util.Random;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.longs.Long2IntMap;
+import it.unimi.dsi.fastutil.longs.Long2IntOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import it.unimi.dsi.fastutil.objects.ObjectIterator;
 import net.minecraft.block.BlockState;
-import net.minecraft.world.IBlockReader;
+import net.minecraft.util.math.SectionPos;
 import net.minecraftforge.api.distmarker.Dist;
 import net.minecraftforge.api.distmarker.OnlyIn;
 import net.minecraft.util.math.BlockPos;
 
 /**
  * Scans the area around the player in a continuous pattern.
+ *
+ * Progress is tracked per chunk section as the box within the section that has been scanned. When the
+ * player moves the scan is retargeted to the new area: what has been scanned is trimmed to the new area,
+ * sections that left range are dropped, and the sections with something left to scan are queued. This
+ * means a scan in progress keeps going as the player moves, and work that has been done is kept.
  */
 @OnlyIn(Dist.CLIENT)
 public abstract class CuboidScanner extends Scanner {
 
+	// Marker for "no box"
+	private static final int NO_BOX = -1;
+
 	// Iteration variables
 	protected boolean scanFinished = false;
 	protected Cuboid activeCuboid;
-	protected CuboidPointIterator fullRange;
+
+	// Box of each section that has been scanned.  Boxes are packed section local coordinates; see pack().
+	private final Long2IntOpenHashMap covered = new Long2IntOpenHashMap();
+	// Sections waiting to be scanned and the box of each that is in range.  Taken from the end.
+	private final LongArrayList pendingSections = new LongArrayList();
+	private final IntArrayList pendingBoxes = new IntArrayList();
+
+	// Section being scanned, the box within it that is in range, the part of that box that is still in range
+	// after any retargets, and the boxes remaining to be walked
+	private long currentSection;
+	private int currentTarget = NO_BOX;
+	private int currentKept = NO_BOX;
+	private final int[] currentBoxes = new int[6];
+	private int currentBoxCount;
+
+	// Reused as the scan area moves so updates do not generate garbage
+	private final SectionPointIterator boxScan = new SectionPointIterator(this::walkSection);
+	private final CuboidPointIterator unscanWalk = new CuboidPointIterator();
+	private final int[] unscanBoxes = new int[6];
+
+	// Unscans read their blocks in batches
+	private static final int BATCH_SIZE = 256;
+	private final long[] batchPositions = new long[BATCH_SIZE];
+	private final BlockState[] batchStates = new BlockState[BATCH_SIZE];
+	private final BlockPos.MutableBlockPos batchPos = new BlockPos.MutableBlockPos();
+	private final IBlockConsumer unscanConsumer = (state, pos) -> blockUnscan(state, pos, this.random);
+
+	// Work done this tick by sections that were handled without walking their blocks
+	private int charged;
 
 	// State of last tick
 	protected BlockPos lastPos;
@@ -47,45 +89,71 @@ public abstract class CuboidScanner extends Scanner {
 	protected CuboidScanner(@Nonnull final ScanContext locus, @Nonnull final String name, final int range,
 							final int blocksPerTick) {
 		super(locus, name, range, blocksPerTick);
+		this.covered.defaultReturnValue(NO_BOX);
 	}
 
 	protected CuboidScanner(@Nonnull final ScanContext locus, @Nonnull final String name, final int xRange,
 							final int yRange, final int zRange) {
 		super(locus, name, xRange, yRange, zRange);
+		this.covered.defaultReturnValue(NO_BOX);
 	}
 
 	protected CuboidScanner(@Nonnull final ScanContext locus, @Nonnull final String name, final int xSize,
 							final int ySize, final int zSize, final int blocksPerTick) {
 		super(locus, name, xSize, ySize, zSize, blocksPerTick);
+		this.covered.defaultReturnValue(NO_BOX);
 	}
 
 	public boolean isScanFinished() {
 		return this.scanFinished;
 	}
 
-	protected BlockPos[] getMinMaxPointsForVolume(@Nonnull final BlockPos pos) {
-		BlockPos min = pos.add(-this.xRange, -this.yRange, -this.zRange);
-		final BlockPos max = pos.add(this.xRange, this.yRange, this.zRange);
-
-		if (min.getY() < 0)
-			min = new BlockPos(min.getX(), 0, min.getZ());
-
-		return new BlockPos[] { min, max };
-	}
-
-	protected Cuboid getVolumeFor(final BlockPos pos) {
-		final BlockPos[] points = getMinMaxPointsForVolume(pos);
-		return new Cuboid(points);
+	/**
+	 * Sets the cuboid to the scan volume centered on the specified position and returns it.
+	 */
+	@Nonnull
+	protected Cuboid setVolumeFor(@Nonnull final Cuboid volume, @Nonnull final BlockPos pos) {
+		return volume.set(
+				pos.getX() - this.xRange,
+				Math.max(pos.getY() - this.yRange, 0),
+				pos.getZ() - this.zRange,
+				pos.getX() + this.xRange,
+				pos.getY() + this.yRange,
+				pos.getZ() + this.zRange);
 	}
 
+	/**
+	 * Forgets everything that has been scanned and starts over.
+	 */
 	protected void resetFullScan() {
+		this.stats.fullReset();
 		this.lastPos = this.locus.getCenter();
 		this.lastReference = this.locus.getReference();
-		this.scanFinished = false;
 
-		final BlockPos[] points = getMinMaxPointsForVolume(this.lastPos);
-		this.activeCuboid = new Cuboid(points);
-		this.fullRange = new CuboidPointIterator(points);
+		this.covered.clear();
+		this.currentTarget = NO_BOX;
+		this.currentBoxCount = 0;
+		this.boxScan.clear();
+
+		if (this.activeCuboid == null)
+			this.activeCuboid = new Cuboid();
+		retarget(this.lastPos);
+	}
+
+	/**
+	 * Invoked by the scan when it reaches a box within a chunk section that needs scanning. Override to
+	 * inspect the section and return false if its blocks do not need to be walked; the box will be skipped.
+	 */
+	protected boolean walkSection(@Nonnull final SectionPointIterator section) {
+		return true;
+	}
+
+	/**
+	 * Counts work done by walkSection() against the blocks per tick.  Once the count reaches the limit the
+	 * scan stops for the tick and picks up with the next box on the following tick.
+	 */
+	protected void charge(final int blocks) {
+		this.charged += blocks;
 	}
 
 	@Override
@@ -94,50 +162,23 @@ public abstract class CuboidScanner extends Scanner {
 		// If there is no player position or it's bogus just return
 		final BlockPos playerPos = this.locus.getCenter();
 		if (playerPos.getY() < 0) {
-			this.fullRange = null;
-		} else {
-			// If the full range was reset, or the player dimension changed,
-			// dump
-			// everything and restart.
-			if (this.fullRange == null || this.locus.getReference() != this.lastReference) {
-				resetFullScan();
-				super.tick();
-			} else if (this.lastPos.equals(playerPos)) {
-				// The player didn't move. If a scan is in progress
-				// continue.
-				if (!this.scanFinished)
-					super.tick();
-			} else {
-				// The player moved.
-				final Cuboid oldVolume = this.activeCuboid != null ? this.activeCuboid : getVolumeFor(this.lastPos);
-				final Cuboid newVolume = getVolumeFor(playerPos);
-				final Cuboid intersect = oldVolume.intersection(newVolume);
-
-				// If there is no intersect it means the player moved
-				// enough of a distance in the last tick to make it a new
-				// area. Otherwise, if there is a sufficiently large
-				// change to the scan area dump and restart.
-				if (intersect == null || oldVolume.volume() < (oldVolume.volume() - intersect.volume()) * 2) {
-					resetFullScan();
-					super.tick();
-				} else {
-
-					// Looks to be a small update, like a player walking around.
-					// If the scan has already completed we do an update.
-					if (this.scanFinished) {
-						this.lastPos = playerPos;
-						this.activeCuboid = newVolume;
-						updateScan(newVolume, oldVolume, intersect);
-					} else {
-						// The existing scan hasn't completed but now we
-						// have a delta set. Finish out scanning the
-						// old volume and once that is locked then an
-						// subsequent tick will do a delta update to get
-						// the new blocks.
-						super.tick();
-					}
-				}
-			}
+			this.activeCuboid = null;
+			return;
+		}
+
+		// If the scan was never started, or the player dimension changed,
+		// dump everything and restart.
+		if (this.activeCuboid == null || this.locus.getReference() != this.lastReference) {
+			resetFullScan();
+		} else if (!this.lastPos.equals(playerPos)) {
+			this.lastPos = playerPos;
+			this.stats.deltaUpdate();
+			retarget(playerPos);
+		}
+
+		if (!this.scanFinished) {
+			this.charged = 0;
+			super.tick();
 		}
 	}
 
@@ -156,34 +197,165 @@ public abstract class CuboidScanner extends Scanner {
 
 	}
 
-	protected void updateScan(@Nonnull final Cuboid newVolume, @Nonnull final Cuboid oldVolume,
-			@Nonnull final Cuboid intersect) {
+	/**
+	 * Points the scan at the volume around the center. Scanned boxes are trimmed to the new volume and the
+	 * sections that have something left to scan are queued.
+	 */
+	private void retarget(@Nonnull final BlockPos center) {
+		final Cuboid volume = setVolumeFor(this.activeCuboid, center);
+
+		final ObjectIterator<Long2IntMap.Entry> itr = this.covered.long2IntEntrySet().fastIterator();
+		while (itr.hasNext()) {
+			final Long2IntMap.Entry entry = itr.next();
+			final long key = entry.getLongKey();
+			// The section in progress is trimmed when it finishes
+			if (this.currentTarget != NO_BOX && key == this.currentSection)
+				continue;
+			final int box = entry.getIntValue();
+			final int target = clip(key, volume);
+			final int kept = target == NO_BOX ? NO_BOX : intersect(box, target);
+			if (kept == box)
+				continue;
+			if (doBlockUnscan())
+				unscan(key, box, kept);
+			if (kept == NO_BOX)
+				itr.remove();
+			else
+				entry.setValue(kept);
+		}
 
-		final IBlockReader provider = this.locus.getWorld();
+		// The section in progress is finished so the blocks already walked are not walked again, but only the
+		// part still in range is walked.  That part is recorded as covered when it finishes.
+		if (this.currentTarget != NO_BOX) {
+			if (this.currentKept != NO_BOX) {
+				final int target = clip(this.currentSection, volume);
+				this.currentKept = target == NO_BOX ? NO_BOX : intersect(this.currentKept, target);
+			}
+			int n = 0;
+			for (int i = 0; i < this.currentBoxCount; i++) {
+				final int box = this.currentKept == NO_BOX ? NO_BOX : intersect(this.currentBoxes[i], this.currentKept);
+				if (box != NO_BOX)
+					this.currentBoxes[n++] = box;
+			}
+			this.currentBoxCount = n;
+		}
 
-		if (doBlockUnscan()) {
-			final ComplementsPointIterator newOutOfRange = new ComplementsPointIterator(oldVolume, intersect);
-			// Notify on the blocks going out of range
-			for (BlockPos point = newOutOfRange.next(); point != null; point = newOutOfRange.next()) {
-				if (point.getY() > 0) {
-					final BlockState state = provider.getBlockState(point);
-					if (interestingBlock(state))
-						blockUnscan(state, point, this.random);
+		this.pendingSections.clear();
+		this.pendingBoxes.clear();
+
+		final int x1 = volume.getMinX() >> 4;
+		final int y1 = volume.getMinY() >> 4;
+		final int z1 = volume.getMinZ() >> 4;
+		final int x2 = volume.getMaxX() >> 4;
+		final int y2 = Math.min(volume.getMaxY() >> 4, 15);
+		final int z2 = volume.getMaxZ() >> 4;
+
+		// Queued in reverse so the scan runs bottom up, then by Z and X
+		for (int sx = x2; sx >= x1; sx--)
+			for (int sz = z2; sz >= z1; sz--)
+				for (int sy = y2; sy >= y1; sy--) {
+					final long key = SectionPos.asLong(sx, sy, sz);
+					final int done = this.currentTarget != NO_BOX && key == this.currentSection ? this.currentKept : this.covered.get(key);
+					final int target = clip(key, volume);
+					if (target != NO_BOX && done != target) {
+						this.pendingSections.add(key);
+						this.pendingBoxes.add(target);
+					}
 				}
+
+		this.scanFinished = this.currentTarget == NO_BOX && this.pendingSections.isEmpty();
+	}
+
+	/**
+	 * Moves to the next box to be walked, moving on to the next section as needed. Returns false if there
+	 * is nothing left to scan.
+	 */
+	private boolean nextBox() {
+		if (this.currentBoxCount == 0) {
+			if (this.currentTarget != NO_BOX) {
+				if (this.currentKept != this.currentTarget && doBlockUnscan())
+					unscan(this.currentSection, this.currentTarget, this.currentKept);
+				if (this.currentKept == NO_BOX)
+					this.covered.remove(this.currentSection);
+				else
+					this.covered.put(this.currentSection, this.currentKept);
+				this.currentTarget = NO_BOX;
+			}
+			if (this.pendingSections.isEmpty())
+				return false;
+
+			final int last = this.pendingSections.size() - 1;
+			this.currentSection = this.pendingSections.removeLong(last);
+			this.currentTarget = this.pendingBoxes.removeInt(last);
+			this.currentKept = this.currentTarget;
+
+			final int box = this.covered.get(this.currentSection);
+			if (box == NO_BOX) {
+				this.currentBoxes[0] = this.currentTarget;
+				this.currentBoxCount = 1;
+			} else {
+				this.currentBoxCount = difference(this.currentTarget, box, this.currentBoxes);
 			}
+
+			if (this.currentBoxCount == 0)
+				return nextBox();
 		}
 
-		// Notify on blocks coming into range
-		final ComplementsPointIterator newInRange = new ComplementsPointIterator(newVolume, intersect);
-		for (BlockPos point = newInRange.next(); point != null; point = newInRange.next()) {
-			if (point.getY() > 0) {
-				final BlockState state = provider.getBlockState(point);
-				if (interestingBlock(state))
-					blockScan(state, point, this.random);
-			}
+		final int box = this.currentBoxes[--this.currentBoxCount];
+		final int bx = SectionPos.extractX(this.currentSection) << 4;
+		final int by = SectionPos.extractY(this.currentSection) << 4;
+		final int bz = SectionPos.extractZ(this.currentSection) << 4;
+		this.boxScan.reset(bx + minX(box), by + minY(box), bz + minZ(box), bx + maxX(box), by + maxY(box), bz + maxZ(box));
+		return true;
+	}
+
+	/**
+	 * Notifies on the blocks of the section that were scanned but are no longer in range.
+	 */
+	private void unscan(final long key, final int box, final int kept) {
+		final int count;
+		if (kept == NO_BOX) {
+			this.unscanBoxes[0] = box;
+			count = 1;
+		} else {
+			count = difference(box, kept, this.unscanBoxes);
 		}
 
-		this.scanFinished = true;
+		final int bx = SectionPos.extractX(key) << 4;
+		final int by = SectionPos.extractY(key) << 4;
+		final int bz = SectionPos.extractZ(key) << 4;
+		for (int i = 0; i < count; i++) {
+			final int b = this.unscanBoxes[i];
+			this.unscanWalk.reset(bx + minX(b), by + minY(b), bz + minZ(b), bx + maxX(b), by + maxY(b), bz + maxZ(b));
+			walk(this.unscanWalk, this.unscanConsumer);
+		}
+	}
+
+	/**
+	 * Reads the blocks for the points of the iterator in batches and hands the interesting ones to the
+	 * consumer.
+	 */
+	private void walk(@Nonnull final IPointIterator points, @Nonnull final IBlockConsumer consumer) {
+		int count = 0;
+		BlockPos point;
+		do {
+			point = points.next();
+			if (point != null && point.getY() > 0)
+				this.batchPositions[count++] = point.toLong();
+			if (count == BATCH_SIZE || (point == null && count > 0)) {
+				this.locus.getBlockStates(this.batchPositions, count, this.batchStates);
+				int hits = 0;
+				for (int i = 0; i < count; i++) {
+					final BlockState state = this.batchStates[i];
+					if (interestingBlock(state)) {
+						hits++;
+						consumer.accept(state, this.batchPos.setPos(this.batchPositions[i]));
+					}
+				}
+				this.stats.blocks(count, hits);
+				count = 0;
+			}
+		} while (point != null);
 	}
 
 	@Override
@@ -195,23 +367,27 @@ public abstract class CuboidScanner extends Scanner {
 
 		int checked = 0;
 
-		BlockPos point;
-		while ((point = this.fullRange.peek()) != null) {
+		do {
+			BlockPos point;
+			while ((point = this.boxScan.next()) != null) {
 
-			// Consume the point
-			this.fullRange.next();
+				// Has to be in valid space for it to
+				// be returned.  The box being walked may have been
+				// started before the player moved.
+				if (point.getY() > 0 && this.activeCuboid.contains(point)) {
+					return point;
+				}
 
-			// Has to be in valid space for it to
-			// be returned.
-			if (point.getY() > 0) {
-				return point;
+				// Advance our check counter and loop back
+				// to examine the next point.
+				if (++checked >= this.blocksPerTick)
+					return null;
 			}
 
-			// Advance our check counter and loop back
-			// to examine the next point.
-			if (++checked >= this.blocksPerTick)
+			// Sections handled by walkSection() count towards the limit as well
+			if (this.charged >= this.blocksPerTick)
 				return null;
-		}
+		} while (nextBox());
 
 		this.scanFinished = true;
 		return null;
@@ -240,4 +416,84 @@ public abstract class CuboidScanner extends Scanner {
 		}
 	}
 
-}
\ No newline at end of file
+	// Boxes within a section are packed 4 bits per coordinate: min X, Y, Z then max X, Y, Z
+
+	private static int pack(final int x1, final int y1, final int z1, final int x2, final int y2, final int z2) {
+		return x1 | (y1 << 4) | (z1 << 8) | (x2 << 12) | (y2 << 16) | (z2 << 20);
+	}
+
+	private static int minX(final int box) {
+		return box & 15;
+	}
+
+	private static int minY(final int box) {
+		return (box >> 4) & 15;
+	}
+
+	private static int minZ(final int box) {
+		return (box >> 8) & 15;
+	}
+
+	private static int maxX(final int box) {
+		return (box >> 12) & 15;
+	}
+
+	private static int maxY(final int box) {
+		return (box >> 16) & 15;
+	}
+
+	private static int maxZ(final int box) {
+		return (box >> 20) & 15;
+	}
+
+	/**
+	 * The part of the volume within the section, or NO_BOX if there is none.
+	 */
+	private static int clip(final long section, @Nonnull final Cuboid volume) {
+		final int bx = SectionPos.extractX(section) << 4;
+		final int by = SectionPos.extractY(section) << 4;
+		final int bz = SectionPos.extractZ(section) << 4;
+		final int x1 = Math.max(volume.getMinX(), bx) - bx;
+		final int y1 = Math.max(volume.getMinY(), by) - by;
+		final int z1 = Math.max(volume.getMinZ(), bz) - bz;
+		final int x2 = Math.min(volume.getMaxX(), bx + 15) - bx;
+		final int y2 = Math.min(volume.getMaxY(), by + 15) - by;
+		final int z2 = Math.min(volume.getMaxZ(), bz + 15) - bz;
+		if (x1 > x2 || y1 > y2 || z1 > z2)
+			return NO_BOX;
+		return pack(x1, y1, z1, x2, y2, z2);
+	}
+
+	private static int intersect(final int a, final int b) {
+		final int x1 = Math.max(minX(a), minX(b));
+		final int y1 = Math.max(minY(a), minY(b));
+		final int z1 = Math.max(minZ(a), minZ(b));
+		final int x2 = Math.min(maxX(a), maxX(b));
+		final int y2 = Math.min(maxY(a), maxY(b));
+		final int z2 = Math.min(maxZ(a), maxZ(b));
+		if (x1 > x2 || y1 > y2 || z1 > z2)
+			return NO_BOX;
+		return pack(x1, y1, z1, x2, y2, z2);
+	}
+
+	/**
+	 * Splits the part of box t that is not in box i, which must be within t, into at most 6 boxes.
+	 */
+	private static int difference(final int t, final int i, @Nonnull final int[] out) {
+		int n = 0;
+		if (minX(t) < minX(i))
+			out[n++] = pack(minX(t), minY(t), minZ(t), minX(i) - 1, maxY(t), maxZ(t));
+		if (maxX(i) < maxX(t))
+			out[n++] = pack(maxX(i) + 1, minY(t), minZ(t), maxX(t), maxY(t), maxZ(t));
+		if (minY(t) < minY(i))
+			out[n++] = pack(minX(i), minY(t), minZ(t), maxX(i), minY(i) - 1, maxZ(t));
+		if (maxY(i) < maxY(t))
+			out[n++] = pack(minX(i), maxY(i) + 1, minZ(t), maxX(i), maxY(t), maxZ(t));
+		if (minZ(t) < minZ(i))
+			out[n++] = pack(minX(i), minY(i), minZ(t), maxX(i), maxY(i), minZ(i) - 1);
+		if (maxZ(i) < maxZ(t))
+			out[n++] = pack(minX(i), minY(i), maxZ(i) + 1, maxX(i), maxY(i), maxZ(t));
+		return n;
+	}
+
+}
@@ -69,13 +69,17 @@ public class RandomBlockEffectScanner extends RandomScanner {
 		final Collection<BlockEffect> effects = profile.getEffects();
 
 		for (final BlockEffect be : effects) {
-			if (be.canTrigger(world, state, pos, rand))
+			if (be.canTrigger(world, state, pos, rand)) {
 				be.doEffect(world, state, pos, rand);
+				this.stats.effect();
+			}
 		}
 
 		final IAcoustic sound = profile.getSoundToPlay(rand);
-		if (sound != null)
+		if (sound != null) {
 			sound.playAt(pos);
+			this.stats.effect();
+		}
 	}
 
 }
@@ -18,6 +18,7 @@
 
 package org.orecruncher.environs.scanner;
 
+import java.util.Arrays;
 import java.util.Random;
 
 import javax.annotation.Nonnull;
@@ -26,6 +27,7 @@ import net.minecraftforge.api.distmarker.Dist;
 import net.minecraftforge.api.distmarker.OnlyIn;
 import org.orecruncher.lib.random.LCGRandom;
 
+import net.minecraft.block.BlockState;
 import net.minecraft.util.math.BlockPos;
 
 /**
@@ -41,6 +43,17 @@ public abstract class RandomScanner extends Scanner {
 	private int playerY;
 	private int playerZ;
 
+	// Importance sampling state.  Candidates are the sections in range that
+	// have something of interest.
+	private boolean importanceSampling;
+	private SectionSnapshots.Section[] candidates;
+	private int[] candidateX;
+	private int[] candidateY;
+	private int[] candidateZ;
+	private long[] candidateMax;
+	private double[] cumulative;
+	private final BlockPos.MutableBlockPos samplePos = new BlockPos.MutableBlockPos();
+
 	public RandomScanner(@Nonnull final ScanContext locus, @Nonnull final String name, final int range,
                          final int blocksPerTick) {
 		super(locus, name, range, blocksPerTick);
@@ -58,6 +71,147 @@ public abstract class RandomScanner extends Scanner {
 		this.playerZ = pos.getZ();
 	}
 
+	/**
+	 * When enabled, walks against section snapshots only sample the blocks that are of interest. A section
+	 * is picked in proportion to the number of such blocks it holds times the best chance the regular walk
+	 * has of landing on one of them. A block is picked at random from the section, and kept with the ratio of
+	 * its own chance to that best chance. The number of picks is set so each block gets the same expected
+	 * number of hits per tick as it would from the regular walk. If the picks would exceed the regular walk's
+	 * sample count, the regular walk is used instead.
+	 */
+	public void setImportanceSampling(final boolean flag) {
+		this.importanceSampling = flag;
+	}
+
+	@Override
+	void scan(@Nonnull final SectionSnapshots snapshots, @Nonnull final ISnapshotConsumer consumer) {
+		if (!this.importanceSampling || !importanceScan(snapshots, consumer))
+			super.scan(snapshots, consumer);
+	}
+
+	private boolean importanceScan(@Nonnull final SectionSnapshots snapshots, @Nonnull final IBlockConsumer consumer) {
+		// Offsets from randomRange() are within +/- (range - 1)
+		final int x1 = (this.playerX - this.xRange + 1) >> 4;
+		final int y1 = Math.max((this.playerY - this.yRange + 1) >> 4, 0);
+		final int z1 = (this.playerZ - this.zRange + 1) >> 4;
+		final int x2 = (this.playerX + this.xRange - 1) >> 4;
+		final int y2 = Math.min((this.playerY + this.yRange - 1) >> 4, 15);
+		final int z2 = (this.playerZ + this.zRange - 1) >> 4;
+
+		if (y1 > y2)
+			return true;
+
+		final int size = (x2 - x1 + 1) * (y2 - y1 + 1) * (z2 - z1 + 1);
+		if (this.candidates == null || this.candidates.length < size) {
+			this.candidates = new SectionSnapshots.Section[size];
+			this.candidateX = new int[size];
+			this.candidateY = new int[size];
+			this.candidateZ = new int[size];
+			this.candidateMax = new long[size];
+			this.cumulative = new double[size];
+		}
+
+		int n = 0;
+		double total = 0;
+		for (int sx = x1; sx <= x2; sx++)
+			for (int sz = z1; sz <= z2; sz++)
+				for (int sy = y1; sy <= y2; sy++) {
+					final SectionSnapshots.Section section = snapshots.getSection(sx, sy, sz);
+					// Sections not captured yet are only handled by the regular walk
+					if (section == null) {
+						Arrays.fill(this.candidates, 0, n, null);
+						return false;
+					}
+					if (section.positions.length == 0)
+						continue;
+					final long best = maxWeight(sx << 4, this.playerX, this.xRange)
+							* maxWeight(sy << 4, this.playerY, this.yRange)
+							* maxWeight(sz << 4, this.playerZ, this.zRange);
+					if (best == 0)
+						continue;
+					total += (double) section.positions.length * best;
+					this.candidates[n] = section;
+					this.candidateX[n] = sx << 4;
+					this.candidateY[n] = sy << 4;
+					this.candidateZ[n] = sz << 4;
+					this.candidateMax[n] = best;
+					this.cumulative[n] = total;
+					n++;
+				}
+
+		if (n == 0)
+			return true;
+
+		// The regular walk lands on a block with probability weight(dx) * weight(dy) * weight(dz) / norm, and
+		// the picks are accepted at a rate of chance / best, so this many picks gives the same expectation.
+		final double norm = (double) this.xRange * this.xRange * this.yRange * this.yRange * this.zRange * this.zRange;
+		final int samples = this.blocksPerTick;
+		final double picks = samples * total / norm;
+		if (picks > samples) {
+			Arrays.fill(this.candidates, 0, n, null);
+			return false;
+		}
+
+		int count = (int) picks;
+		if (nextUnit() < picks - count)
+			count++;
+
+		int read = 0;
+		int hits = 0;
+
+		for (int i = 0; i < count; i++) {
+			int idx = Arrays.binarySearch(this.cumulative, 0, n, nextUnit() * total);
+			idx = idx < 0 ? -idx - 1 : idx + 1;
+			if (idx >= n)
+				idx = n - 1;
+
+			final SectionSnapshots.Section section = this.candidates[idx];
+			final int local = section.positions[this.lcg.nextInt(section.positions.length)];
+			final int x = this.candidateX[idx] + (local & 15);
+			final int y = this.candidateY[idx] + (local >> 8);
+			final int z = this.candidateZ[idx] + ((local >> 4) & 15);
+
+			final long chance = weight(x - this.playerX, this.xRange)
+					* weight(y - this.playerY, this.yRange)
+					* weight(z - this.playerZ, this.zRange);
+			if (nextUnit() * this.candidateMax[idx] >= chance)
+				continue;
+
+			read++;
+			final BlockState state = section.states[local];
+			if (interestingBlock(state)) {
+				hits++;
+				consumer.accept(state, this.samplePos.setPos(x, y, z));
+			}
+		}
+		this.stats.blocks(read, hits);
+
+		// Don't hold on to sections that may be replaced
+		Arrays.fill(this.candidates, 0, n, null);
+		return true;
+	}
+
+	private double nextUnit() {
+		return this.lcg.nextInt(1 << 24) / (double) (1 << 24);
+	}
+
+	/**
+	 * Relative chance of randomRange() returning the offset.
+	 */
+	private static long weight(final int offset, final int range) {
+		final int d = Math.abs(offset);
+		return d < range ? range - d : 0;
+	}
+
+	/**
+	 * Best relative chance for the offsets of the 16 blocks starting at base.
+	 */
+	private static long maxWeight(final int base, final int center, final int range) {
+		final int lo = base - center;
+		final int hi = lo + 15;
+		return weight(lo > 0 ? lo : (hi < 0 ? hi : 0), range);
+	}
+
 	@Override
 	@Nonnull
 	protected BlockPos nextPos(@Nonnull final BlockPos.MutableBlockPos workingPos, @Nonnull final Random rand) {
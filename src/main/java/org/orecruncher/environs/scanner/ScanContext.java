@@ -19,8 +19,12 @@
 package org.orecruncher.environs.scanner;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 
+import net.minecraft.block.BlockState;
 import net.minecraft.world.IBlockReader;
+import net.minecraft.world.World;
+import net.minecraft.world.chunk.ChunkSection;
 import net.minecraftforge.api.distmarker.Dist;
 import net.minecraftforge.api.distmarker.OnlyIn;
 
@@ -36,17 +40,20 @@ public class ScanContext {
 	private final Supplier<BlockPos> scanCenter;
 	private final Supplier<Integer> worldReference;
 	private final Supplier<IModLog> logger;
+	private final Supplier<World> chunkProvider;
 
 	public ScanContext(
 			@Nonnull final Supplier<IBlockReader> worldReader,
 			@Nonnull final Supplier<BlockPos> scanCenter,
 			@Nonnull final Supplier<IModLog> logger,
-			@Nonnull final Supplier<Integer> worldReference
+			@Nonnull final Supplier<Integer> worldReference,
+			@Nonnull final Supplier<World> chunkProvider
 	) {
 		this.worldReader = worldReader;
 		this.scanCenter = scanCenter;
 		this.worldReference = worldReference;
 		this.logger = logger;
+		this.chunkProvider = chunkProvider;
 	}
 
 	@Nonnull
@@ -54,6 +61,20 @@ public class ScanContext {
 		return this.worldReader.get();
 	}
 
+	/**
+	 * Reads the block states for the positions, which are in BlockPos.toLong() format.
+	 */
+	public void getBlockStates(@Nonnull final long[] packedPositions, final int count, @Nonnull final BlockState[] out) {
+		final IBlockReader reader = getWorld();
+		if (reader instanceof CachedBlockReader) {
+			((CachedBlockReader) reader).getBlockStates(packedPositions, count, out);
+		} else {
+			final BlockPos.MutableBlockPos pos = new BlockPos.MutableBlockPos();
+			for (int i = 0; i < count; i++)
+				out[i] = reader.getBlockState(pos.setPos(packedPositions[i]));
+		}
+	}
+
 	@Nonnull
 	public BlockPos getCenter() {
 		return this.scanCenter.get();
@@ -68,4 +89,23 @@ public class ScanContext {
 		return this.worldReference.get();
 	}
 
+	/**
+	 * Obtains the chunk section with the specified section coordinates. Sections that are outside the
+	 * world height or that have never held a block will be returned as null.
+	 */
+	@Nullable
+	public ChunkSection getChunkSection(final int sectionX, final int sectionY, final int sectionZ) {
+		if (sectionY < 0 || sectionY > 15)
+			return null;
+		final World world = getChunkProvider();
+		if (world == null)
+			return null;
+		return world.getChunk(sectionX, sectionZ).getSections()[sectionY];
+	}
+
+	@Nullable
+	public World getChunkProvider() {
+		return this.chunkProvider.get();
+	}
+
 }
@@ -0,0 +1,189 @@
+/*
+ *  Dynamic Surroundings: Environs
+ *  Copyright (C) 2020  OreCruncher
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>
+ */
+
+
+package org.orecruncher.environs.scanner;
+
+import java.util.Arrays;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Predicate;
+
+import javax.annotation.Nonnull;
+
+import net.minecraft.block.BlockState;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.world.IBlockReader;
+import net.minecraft.world.chunk.IChunk;
+import net.minecraftforge.api.distmarker.Dist;
+import net.minecraftforge.api.distmarker.OnlyIn;
+
+/**
+ * Runs the block walk of a set of scanners on a background thread. The walk reads from snapshots of the
+ * chunk sections around the scan center, and the hits are handed to the scanners' blockScan() on the client
+ * thread the following tick. Positions in sections that have not been captured yet are read from the world
+ * when the hits are dispatched. Only scanners whose nextPos() does not depend on world state can be run this
+ * way. The filter must accept every block state the scanners would find interesting.
+ */
+@OnlyIn(Dist.CLIENT)
+public final class ScanExecutor {
+
+	private static final ExecutorService EXECUTOR = Executors.newSingleThreadExecutor(r -> {
+		final Thread thread = new Thread(r, "Environs Block Scanner");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	private final ScanContext locus;
+	private final Scanner[] scanners;
+	private final Hits[] hits;
+	private final SectionSnapshots snapshots;
+	private final BlockPos.MutableBlockPos dispatchPos = new BlockPos.MutableBlockPos();
+
+	private Future<?> job;
+
+	public ScanExecutor(@Nonnull final ScanContext locus, @Nonnull final Predicate<BlockState> filter, @Nonnull final Scanner... scanners) {
+		this.locus = locus;
+		this.scanners = scanners;
+		this.hits = new Hits[scanners.length];
+
+		int range = 0;
+		for (int i = 0; i < scanners.length; i++) {
+			final Scanner s = scanners[i];
+			range = Math.max(range, Math.max(s.xRange, Math.max(s.yRange, s.zRange)));
+			this.hits[i] = new Hits();
+		}
+
+		this.snapshots = new SectionSnapshots(locus, filter, range);
+	}
+
+	/**
+	 * Collects the results of the previous walk, dispatches them, and starts the next one. Called from the
+	 * client thread.
+	 */
+	public void tick() {
+		if (join()) {
+			final IBlockReader world = this.locus.getWorld();
+			for (int i = 0; i < this.scanners.length; i++) {
+				final Scanner scanner = this.scanners[i];
+				final Hits h = this.hits[i];
+				for (int j = 0; j < h.count; j++) {
+					final BlockState state = h.states[j];
+					this.dispatchPos.setPos(h.positions[j]);
+					// The world may have changed since the snapshot was taken
+					if (world.getBlockState(this.dispatchPos) == state)
+						scanner.blockScan(state, this.dispatchPos, scanner.random);
+				}
+				// Positions in sections that were not captured yet are read now
+				int hits = 0;
+				for (int j = 0; j < h.deferredCount; j++) {
+					this.dispatchPos.setPos(h.deferred[j]);
+					final BlockState state = world.getBlockState(this.dispatchPos);
+					if (scanner.interestingBlock(state)) {
+						hits++;
+						scanner.blockScan(state, this.dispatchPos, scanner.random);
+					}
+				}
+				scanner.getStats().blocks(h.deferredCount, hits);
+				scanner.postScan();
+			}
+		}
+
+		// No walk is in progress so the counters are safe to advance
+		for (final Scanner scanner : this.scanners)
+			scanner.getStats().tick();
+
+		this.snapshots.update();
+
+		for (final Scanner scanner : this.scanners)
+			scanner.preScan();
+
+		this.job = EXECUTOR.submit(this::scan);
+	}
+
+	/**
+	 * Waits for any walk in progress and drops all snapshot information.
+	 */
+	public void shutdown() {
+		join();
+		this.snapshots.clear();
+	}
+
+	public void onBlockUpdate(@Nonnull final BlockPos pos) {
+		this.snapshots.markChanged(pos);
+	}
+
+	public void onChunkLoad(@Nonnull final IChunk chunk) {
+		this.snapshots.markDirty(chunk.getPos().x, chunk.getPos().z);
+	}
+
+	public void onChunkUnload(@Nonnull final IChunk chunk) {
+		this.snapshots.markDirty(chunk.getPos().x, chunk.getPos().z);
+	}
+
+	private void scan() {
+		for (int i = 0; i < this.scanners.length; i++) {
+			this.hits[i].count = 0;
+			this.hits[i].deferredCount = 0;
+			this.scanners[i].scan(this.snapshots, this.hits[i]);
+		}
+	}
+
+	private boolean join() {
+		if (this.job == null)
+			return false;
+		try {
+			this.job.get();
+		} catch (final InterruptedException ex) {
+			Thread.currentThread().interrupt();
+		} catch (final ExecutionException ex) {
+			this.locus.getLogger().error(ex.getCause(), "Block scan error");
+		}
+		this.job = null;
+		return true;
+	}
+
+	private static final class Hits implements Scanner.ISnapshotConsumer {
+
+		BlockState[] states = new BlockState[64];
+		long[] positions = new long[64];
+		int count;
+		long[] deferred = new long[64];
+		int deferredCount;
+
+		@Override
+		public void accept(@Nonnull final BlockState state, @Nonnull final BlockPos pos) {
+			if (this.count == this.states.length) {
+				this.states = Arrays.copyOf(this.states, this.count * 2);
+				this.positions = Arrays.copyOf(this.positions, this.count * 2);
+			}
+			this.states[this.count] = state;
+			this.positions[this.count] = pos.toLong();
+			this.count++;
+		}
+
+		@Override
+		public void defer(@Nonnull final BlockPos pos) {
+			if (this.deferredCount == this.deferred.length)
+				this.deferred = Arrays.copyOf(this.deferred, this.deferredCount * 2);
+			this.deferred[this.deferredCount++] = pos.toLong();
+		}
+	}
+}
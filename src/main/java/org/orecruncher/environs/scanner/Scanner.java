@@ -58,13 +58,18 @@ public abstract class Scanner {
 	protected final int xSize;
 	protected final int ySize;
 	protected final int zSize;
-	protected final int blocksPerTick;
+	protected final int baseBlocksPerTick;
+	// Can be changed by the budget while a scan is running on another thread; it is
+	// only used as a loop bound so a stale read is harmless.
+	protected int blocksPerTick;
 	protected final int volume;
 
 	protected final ScanContext locus;
 
+	protected final ScannerStats stats;
 	protected final Random random = new XorShiftRandom();
 	protected final BlockPos.MutableBlockPos workingPos = new BlockPos.MutableBlockPos();
+	private final IBlockConsumer dispatcher = (state, pos) -> blockScan(state, pos, this.random);
 
 	public Scanner(@Nonnull final ScanContext locus, @Nonnull final String name, final int range) {
 		this(locus, name, range, 0);
@@ -92,11 +97,13 @@ public abstract class Scanner {
 		this.zSize = zRange * 2;
 		this.volume = this.xSize * this.ySize * this.zSize;
 		if (blocksPerTick == 0)
-			this.blocksPerTick = Math.min(this.volume / 20, MAX_BLOCKS_TICK);
+			this.baseBlocksPerTick = Math.min(this.volume / 20, MAX_BLOCKS_TICK);
 		else
-			this.blocksPerTick = Math.min(blocksPerTick, MAX_BLOCKS_TICK);
+			this.baseBlocksPerTick = Math.min(blocksPerTick, MAX_BLOCKS_TICK);
+		this.blocksPerTick = this.baseBlocksPerTick;
 
 		this.locus = locus;
+		this.stats = new ScannerStats(name);
 	}
 
 	/**
@@ -106,6 +113,28 @@ public abstract class Scanner {
 		return this.volume;
 	}
 
+	/**
+	 * The number of blocks currently walked per tick
+	 */
+	public int getBlocksPerTick() {
+		return this.blocksPerTick;
+	}
+
+	/**
+	 * Counters describing the work done by the scanner
+	 */
+	@Nonnull
+	public ScannerStats getStats() {
+		return this.stats;
+	}
+
+	/**
+	 * Scales the number of blocks walked per tick relative to the number the scanner was created with.
+	 */
+	public void setBudgetScale(final float scale) {
+		this.blocksPerTick = Math.max(1, (int) (this.baseBlocksPerTick * scale));
+	}
+
 	/**
 	 * Invoked when a block of interest is discovered. The BlockPos provided is not
 	 * safe to hold on to beyond the call so if it needs to be kept it needs to be
@@ -133,22 +162,55 @@ public abstract class Scanner {
 	public void tick() {
 
 		preScan();
+		scan(this.locus.getWorld(), this.dispatcher);
+		postScan();
+
+	}
+
+	/**
+	 * Walks the positions for a tick, reading block states from the provider and handing the interesting ones
+	 * to the consumer. preScan() and postScan() are not called. When used from a thread other than the client
+	 * thread the provider must be safe to read from that thread and nextPos() must not rely on world state.
+	 */
+	public void scan(@Nonnull final IBlockReader provider, @Nonnull final IBlockConsumer consumer) {
+		walk(provider, consumer, null, null);
+	}
 
-		final IBlockReader provider = this.locus.getWorld();
-		for (int count = 0; count < this.blocksPerTick; count++) {
+	/**
+	 * Walks the positions for a tick against chunk section snapshots. Scanners that can make use of the
+	 * snapshot information can override; by default it is the same as a walk against any other reader, except
+	 * that positions in sections that have not been captured yet are deferred rather than read as air.
+	 */
+	void scan(@Nonnull final SectionSnapshots snapshots, @Nonnull final ISnapshotConsumer consumer) {
+		walk(snapshots, consumer, snapshots, consumer);
+	}
+
+	private void walk(@Nonnull final IBlockReader provider, @Nonnull final IBlockConsumer consumer,
+					  @Nullable final SectionSnapshots snapshots, @Nullable final ISnapshotConsumer deferrals) {
+		final int samples = this.blocksPerTick;
+		int read = 0;
+		int ignored = 0;
+		int hits = 0;
+		for (int count = 0; count < samples; count++) {
 			final BlockPos pos = nextPos(this.workingPos, this.random);
 			if (pos == null)
 				break;
+			if (snapshots != null && !snapshots.isCaptured(pos)) {
+				deferrals.defer(pos);
+				continue;
+			}
+			read++;
 			final BlockState state = provider.getBlockState(pos);
-			if (BLOCKSTATES_TO_IGNORE.contains(state))
+			if (BLOCKSTATES_TO_IGNORE.contains(state)) {
+				ignored++;
 				continue;
+			}
 			if (interestingBlock(state)) {
-				blockScan(state, pos, this.random);
+				hits++;
+				consumer.accept(state, pos);
 			}
 		}
-
-		postScan();
-
+		this.stats.blocks(read, ignored, hits);
 	}
 
 	/**
@@ -159,4 +221,21 @@ public abstract class Scanner {
 	@Nullable
 	protected abstract BlockPos nextPos(@Nonnull final BlockPos.MutableBlockPos pos, @Nonnull final Random rand);
 
+	/**
+	 * Receives the blocks of interest found during a scan. As with blockScan() the BlockPos is not safe to
+	 * hold on to.
+	 */
+	@FunctionalInterface
+	public interface IBlockConsumer {
+		void accept(@Nonnull final BlockState state, @Nonnull final BlockPos pos);
+	}
+
+	/**
+	 * Receives the results of a walk against snapshots. Positions whose section has not been captured are
+	 * deferred so they can be read from the world on the client thread.
+	 */
+	interface ISnapshotConsumer extends IBlockConsumer {
+		void defer(@Nonnull final BlockPos pos);
+	}
+
 }
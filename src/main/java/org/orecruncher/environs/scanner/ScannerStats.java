@@ -0,0 +1,128 @@
+/*
+ *  Dynamic Surroundings: Environs
+ *  Copyright (C) 2020  OreCruncher
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>
+ */
+
+
+package org.orecruncher.environs.scanner;
+
+import javax.annotation.Nonnull;
+
+import net.minecraftforge.api.distmarker.Dist;
+import net.minecraftforge.api.distmarker.OnlyIn;
+
+/**
+ * Counters describing the work a scanner does.  Counts are gathered over a window of ticks and the figures
+ * of the last complete window are reported as per tick averages.  Counting can happen on the scan thread but
+ * tick() must only be called when no scan is in progress.
+ */
+@OnlyIn(Dist.CLIENT)
+public final class ScannerStats {
+
+	// Length of the reporting window in ticks
+	public static final int WINDOW = 100;
+
+	private final String name;
+
+	private int ticks;
+	private long read;
+	private long ignored;
+	private long hits;
+	private long effects;
+	private int fullResets;
+	private int deltaUpdates;
+	private boolean ignoredCounted;
+
+	// Figures of the last complete window
+	private float readRate;
+	private float ignoredRate;
+	private float hitRate;
+	private float effectRate;
+	private int lastFullResets;
+	private int lastDeltaUpdates;
+	private boolean lastIgnoredCounted;
+
+	public ScannerStats(@Nonnull final String name) {
+		this.name = name;
+	}
+
+	/**
+	 * Records a batch of block reads: the number read and how many were of interest.  Used by walks that do
+	 * not screen out ignored states.
+	 */
+	public void blocks(final int read, final int hits) {
+		this.read += read;
+		this.hits += hits;
+	}
+
+	/**
+	 * Records a batch of block reads: the number read, how many were ignored outright, and how many were
+	 * of interest.
+	 */
+	public void blocks(final int read, final int ignored, final int hits) {
+		blocks(read, hits);
+		this.ignored += ignored;
+		this.ignoredCounted = true;
+	}
+
+	public void effect() {
+		this.effects++;
+	}
+
+	public void fullReset() {
+		this.fullResets++;
+	}
+
+	public void deltaUpdate() {
+		this.deltaUpdates++;
+	}
+
+	/**
+	 * Advances the window, publishing the figures when it completes.
+	 */
+	public void tick() {
+		if (++this.ticks < WINDOW)
+			return;
+
+		final float scale = 1F / this.ticks;
+		this.readRate = this.read * scale;
+		this.ignoredRate = this.ignored * scale;
+		this.hitRate = this.hits * scale;
+		this.effectRate = this.effects * scale;
+		this.lastFullResets = this.fullResets;
+		this.lastDeltaUpdates = this.deltaUpdates;
+		this.lastIgnoredCounted = this.ignoredCounted;
+
+		this.ticks = 0;
+		this.read = 0;
+		this.ignored = 0;
+		this.hits = 0;
+		this.effects = 0;
+		this.fullResets = 0;
+		this.deltaUpdates = 0;
+		this.ignoredCounted = false;
+	}
+
+	@Override
+	@Nonnull
+	public String toString() {
+		// Ignored states are only reported when the walk actually screened for them
+		final String ignored = this.lastIgnoredCounted ? String.format(", ignored %.0f/t", this.ignoredRate) : "";
+		return String.format("%s: read %.0f/t%s, hits %.1f/t, effects %.1f/t, resets %d, deltas %d",
+				this.name, this.readRate, ignored, this.hitRate, this.effectRate,
+				this.lastFullResets, this.lastDeltaUpdates);
+	}
+}
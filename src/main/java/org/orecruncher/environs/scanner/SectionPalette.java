@@ -0,0 +1,101 @@
+/*
+ *  Dynamic Surroundings: Environs
+ *  Copyright (C) 2020  OreCruncher
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>
+ */
+
+
+package org.orecruncher.environs.scanner;
+
+import java.lang.reflect.Field;
+import java.util.function.Predicate;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import net.minecraft.block.BlockState;
+import net.minecraft.util.palette.IPalette;
+import net.minecraft.util.palette.IdentityPalette;
+import net.minecraft.world.chunk.ChunkSection;
+import net.minecraftforge.api.distmarker.Dist;
+import net.minecraftforge.api.distmarker.OnlyIn;
+import net.minecraftforge.fml.common.ObfuscationReflectionHelper;
+import org.orecruncher.environs.Environs;
+
+/**
+ * Peeks at the block state palette of a chunk section to determine whether the section could contain a
+ * state of interest. A section whose palette does not have a matching state can be skipped without
+ * reading any of its 4096 blocks. The palette can contain states that are no longer present in the
+ * section so the answer is conservative.
+ */
+@OnlyIn(Dist.CLIENT)
+public final class SectionPalette {
+
+	// PalettedContainer.palette
+	private static final String PALETTE_FIELD = "field_186022_c";
+	private static final int MAX_PALETTE_SIZE = 256;
+
+	private static Field paletteField;
+	private static boolean disabled;
+
+	private SectionPalette() {
+
+	}
+
+	/**
+	 * Determines if the chunk section could contain a block state that matches the predicate. Sections
+	 * that are null or all air cannot match. If the palette cannot be inspected the section is assumed
+	 * to match.
+	 */
+	public static boolean mayContain(@Nullable final ChunkSection section, @Nonnull final Predicate<BlockState> predicate) {
+		if (section == null || section.isEmpty())
+			return false;
+
+		final IPalette<BlockState> palette = getPalette(section);
+
+		// The global palette is used when a section has a lot of variety.  Can't tell
+		// anything from it so assume the worst.
+		if (palette == null || palette instanceof IdentityPalette)
+			return true;
+
+		for (int i = 0; i < MAX_PALETTE_SIZE; i++) {
+			final BlockState state = palette.get(i);
+			if (state == null)
+				break;
+			if (predicate.test(state))
+				return true;
+		}
+
+		return false;
+	}
+
+	@Nullable
+	@SuppressWarnings("unchecked")
+	private static IPalette<BlockState> getPalette(@Nonnull final ChunkSection section) {
+		if (disabled)
+			return null;
+
+		try {
+			final Object container = section.getData();
+			if (paletteField == null)
+				paletteField = ObfuscationReflectionHelper.findField(container.getClass(), PALETTE_FIELD);
+			return (IPalette<BlockState>) paletteField.get(container);
+		} catch (@Nonnull final Throwable t) {
+			Environs.LOGGER.warn("Unable to access chunk section palette; section skipping disabled (%s)", t.getMessage());
+			disabled = true;
+		}
+		return null;
+	}
+}
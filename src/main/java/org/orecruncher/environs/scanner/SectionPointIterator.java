@@ -0,0 +1,172 @@
+/*
+ *  Dynamic Surroundings: Environs
+ *  Copyright (C) 2020  OreCruncher
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>
+ */
+
+
+package org.orecruncher.environs.scanner;
+
+import javax.annotation.Nonnull;
+
+import net.minecraft.util.math.BlockPos;
+import net.minecraftforge.api.distmarker.Dist;
+import net.minecraftforge.api.distmarker.OnlyIn;
+
+/**
+ * Iterates the points of a cuboid one chunk section at a time. When the iteration enters a new section the
+ * section filter is consulted. If the filter declines the section none of its points are returned. The
+ * iterator uses mutables for position so they aren't safe to cache.
+ */
+@OnlyIn(Dist.CLIENT)
+public class SectionPointIterator extends CuboidPointIterator {
+
+	@FunctionalInterface
+	public interface ISectionFilter {
+		/**
+		 * Return true if the points of the current section should be walked.
+		 */
+		boolean walk(@Nonnull final SectionPointIterator section);
+	}
+
+	protected final ISectionFilter filter;
+
+	// Current section, and the part of the cuboid that is within it
+	protected int sectionX;
+	protected int sectionY;
+	protected int sectionZ;
+	protected int sMinX;
+	protected int sMinY;
+	protected int sMinZ;
+	protected int sMaxX;
+	protected int sMaxY;
+	protected int sMaxZ;
+
+	/**
+	 * Creates an iterator with nothing to walk.  Use reset() to give it a cuboid.
+	 */
+	public SectionPointIterator(@Nonnull final ISectionFilter filter) {
+		this.filter = filter;
+	}
+
+	public SectionPointIterator(@Nonnull final BlockPos min, @Nonnull final BlockPos max, @Nonnull final ISectionFilter filter) {
+		this(filter);
+		reset(min.getX(), min.getY(), min.getZ(), max.getX(), max.getY(), max.getZ());
+	}
+
+	public int getSectionX() {
+		return this.sectionX;
+	}
+
+	public int getSectionY() {
+		return this.sectionY;
+	}
+
+	public int getSectionZ() {
+		return this.sectionZ;
+	}
+
+	/**
+	 * Bounds of the cuboid that fall within the current section, inclusive.
+	 */
+	public int getMinX() {
+		return this.sMinX;
+	}
+
+	public int getMinY() {
+		return this.sMinY;
+	}
+
+	public int getMinZ() {
+		return this.sMinZ;
+	}
+
+	public int getMaxX() {
+		return this.sMaxX;
+	}
+
+	public int getMaxY() {
+		return this.sMaxY;
+	}
+
+	public int getMaxZ() {
+		return this.sMaxZ;
+	}
+
+	/**
+	 * Determines if the point is within the part of the cuboid covered by the current section.
+	 */
+	public boolean contains(final int x, final int y, final int z) {
+		return x >= this.sMinX && x <= this.sMaxX && y >= this.sMinY && y <= this.sMaxY && z >= this.sMinZ && z <= this.sMaxZ;
+	}
+
+	@Override
+	protected void start() {
+		this.sectionX = this.minX >> 4;
+		this.sectionY = this.minY >> 4;
+		this.sectionZ = this.minZ >> 4;
+		this.hasNext = findSection(false);
+	}
+
+	@Override
+	protected void advance() {
+		if (++this.x <= this.sMaxX)
+			return;
+		this.x = this.sMinX;
+		if (++this.z <= this.sMaxZ)
+			return;
+		this.z = this.sMinZ;
+		if (++this.y <= this.sMaxY)
+			return;
+		this.hasNext = findSection(true);
+	}
+
+	/**
+	 * Moves to the next section the filter is interested in. Sections are walked bottom up, then by Z and X.
+	 */
+	protected boolean findSection(boolean step) {
+		final int lastX = this.maxX >> 4;
+		final int lastY = this.maxY >> 4;
+		final int lastZ = this.maxZ >> 4;
+
+		while (this.sectionX <= lastX) {
+			if (step && ++this.sectionY > lastY) {
+				this.sectionY = this.minY >> 4;
+				if (++this.sectionZ > lastZ) {
+					this.sectionZ = this.minZ >> 4;
+					if (++this.sectionX > lastX)
+						break;
+				}
+			}
+			step = true;
+
+			this.sMinX = Math.max(this.minX, this.sectionX << 4);
+			this.sMinY = Math.max(this.minY, this.sectionY << 4);
+			this.sMinZ = Math.max(this.minZ, this.sectionZ << 4);
+			this.sMaxX = Math.min(this.maxX, (this.sectionX << 4) + 15);
+			this.sMaxY = Math.min(this.maxY, (this.sectionY << 4) + 15);
+			this.sMaxZ = Math.min(this.maxZ, (this.sectionZ << 4) + 15);
+
+			if (this.filter.walk(this)) {
+				this.x = this.sMinX;
+				this.y = this.sMinY;
+				this.z = this.sMinZ;
+				return true;
+			}
+		}
+
+		return false;
+	}
+}
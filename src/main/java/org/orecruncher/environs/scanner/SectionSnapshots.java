@@ -0,0 +1,299 @@
+/*
+ *  Dynamic Surroundings: Environs
+ *  Copyright (C) 2020  OreCruncher
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>
+ */
+
+
+package org.orecruncher.environs.scanner;
+
+import java.util.function.Predicate;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongIterator;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import net.minecraft.block.BlockState;
+import net.minecraft.block.Blocks;
+import net.minecraft.fluid.IFluidState;
+import net.minecraft.tileentity.TileEntity;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.SectionPos;
+import net.minecraft.world.IBlockReader;
+import net.minecraft.world.chunk.ChunkSection;
+import net.minecraftforge.api.distmarker.Dist;
+import net.minecraftforge.api.distmarker.OnlyIn;
+
+/**
+ * Copies of the chunk sections around the scan center. Only the block states accepted by the filter are
+ * kept; everything else reads back as air. Each copy also lists where those block states are within the
+ * section. Sections are captured a few per tick, and walks use isCaptured() to tell a section that has not
+ * been captured yet from one that holds nothing. The copies are changed only by update() on the client thread, which makes it safe for a single
+ * other thread to read them in between.
+ */
+@OnlyIn(Dist.CLIENT)
+final class SectionSnapshots implements IBlockReader {
+
+	// Marker for sections that have nothing of interest
+	static final Section NOTHING = new Section(new BlockState[0], new short[0]);
+	private static final BlockState AIR = Blocks.AIR.getDefaultState();
+	private static final BlockState VOID_AIR = Blocks.VOID_AIR.getDefaultState();
+
+	private static final int MAX_CAPTURES_PER_TICK = 16;
+
+	private final ScanContext locus;
+	private final Predicate<BlockState> filter;
+	private final int range;
+	private final Long2ObjectOpenHashMap<Section> sections = new Long2ObjectOpenHashMap<>();
+	private final LongOpenHashSet dirty = new LongOpenHashSet();
+	private final LongOpenHashSet changed = new LongOpenHashSet();
+
+	private int reference = Integer.MIN_VALUE;
+	private int minX, minY, minZ;
+	private int maxX, maxY, maxZ;
+	private boolean complete;
+
+	SectionSnapshots(@Nonnull final ScanContext locus, @Nonnull final Predicate<BlockState> filter, final int range) {
+		this.locus = locus;
+		this.filter = filter;
+		this.range = range;
+	}
+
+	/**
+	 * Brings the snapshots in line with the current scan center. Sections that moved out of range or were
+	 * marked dirty are dropped, changed blocks are patched into their copies, and missing sections are
+	 * captured a few at a time.
+	 */
+	void update() {
+		final int ref = this.locus.getReference();
+		if (ref != this.reference) {
+			this.reference = ref;
+			clear();
+		}
+
+		final BlockPos center = this.locus.getCenter();
+		final int x1 = (center.getX() - this.range) >> 4;
+		final int y1 = Math.max((center.getY() - this.range) >> 4, 0);
+		final int z1 = (center.getZ() - this.range) >> 4;
+		final int x2 = (center.getX() + this.range) >> 4;
+		final int y2 = Math.min((center.getY() + this.range) >> 4, 15);
+		final int z2 = (center.getZ() + this.range) >> 4;
+
+		if (x1 != this.minX || y1 != this.minY || z1 != this.minZ || x2 != this.maxX || y2 != this.maxY || z2 != this.maxZ) {
+			this.minX = x1;
+			this.minY = y1;
+			this.minZ = z1;
+			this.maxX = x2;
+			this.maxY = y2;
+			this.maxZ = z2;
+			final LongIterator itr = this.sections.keySet().iterator();
+			while (itr.hasNext()) {
+				final long key = itr.nextLong();
+				if (!inRange(SectionPos.extractX(key), SectionPos.extractY(key), SectionPos.extractZ(key)))
+					itr.remove();
+			}
+			this.complete = false;
+		}
+
+		if (!this.dirty.isEmpty()) {
+			final LongIterator itr = this.dirty.iterator();
+			while (itr.hasNext())
+				this.sections.remove(itr.nextLong());
+			this.dirty.clear();
+			this.complete = false;
+		}
+
+		if (!this.changed.isEmpty())
+			applyChanges();
+
+		if (this.complete)
+			return;
+
+		int captures = 0;
+		for (int sx = this.minX; sx <= this.maxX; sx++)
+			for (int sz = this.minZ; sz <= this.maxZ; sz++)
+				for (int sy = this.minY; sy <= this.maxY; sy++) {
+					final long key = SectionPos.asLong(sx, sy, sz);
+					if (this.sections.containsKey(key))
+						continue;
+					if (captures++ == MAX_CAPTURES_PER_TICK)
+						return;
+					this.sections.put(key, capture(sx, sy, sz));
+				}
+
+		this.complete = true;
+	}
+
+	/**
+	 * Marks the block at the position as changed. The new state is patched into the copy on the next update.
+	 */
+	void markChanged(@Nonnull final BlockPos pos) {
+		this.changed.add(pos.toLong());
+	}
+
+	/**
+	 * Marks all the sections of the chunk as needing to be captured again.
+	 */
+	void markDirty(final int chunkX, final int chunkZ) {
+		for (int sy = 0; sy < 16; sy++)
+			this.dirty.add(SectionPos.asLong(chunkX, sy, chunkZ));
+	}
+
+	void clear() {
+		this.sections.clear();
+		this.dirty.clear();
+		this.changed.clear();
+		this.complete = false;
+	}
+
+	/**
+	 * Obtains the copy of the specified section, or null if the section has not been captured.
+	 */
+	@Nullable
+	Section getSection(final int sectionX, final int sectionY, final int sectionZ) {
+		return this.sections.get(SectionPos.asLong(sectionX, sectionY, sectionZ));
+	}
+
+	/**
+	 * Determines if the section holding the position has been captured. Positions outside the world height
+	 * count as captured since they always read as void air.
+	 */
+	boolean isCaptured(@Nonnull final BlockPos pos) {
+		final int y = pos.getY();
+		return y < 0 || y > 255 || this.sections.containsKey(SectionPos.asLong(pos.getX() >> 4, y >> 4, pos.getZ() >> 4));
+	}
+
+	private boolean inRange(final int sx, final int sy, final int sz) {
+		return sx >= this.minX && sx <= this.maxX && sy >= this.minY && sy <= this.maxY && sz >= this.minZ && sz <= this.maxZ;
+	}
+
+	private void applyChanges() {
+		// Copies are replaced rather than modified so a section is only cloned once per update
+		final Long2ObjectOpenHashMap<BlockState[]> patched = new Long2ObjectOpenHashMap<>();
+		final BlockPos.MutableBlockPos pos = new BlockPos.MutableBlockPos();
+		final LongIterator itr = this.changed.iterator();
+		while (itr.hasNext()) {
+			pos.setPos(itr.nextLong());
+			final int sx = pos.getX() >> 4;
+			final int sy = pos.getY() >> 4;
+			final int sz = pos.getZ() >> 4;
+			final long key = SectionPos.asLong(sx, sy, sz);
+			final Section current = this.sections.get(key);
+			// Sections without a copy will be captured in full
+			if (current == null)
+				continue;
+
+			BlockState[] states = patched.get(key);
+			if (states == null) {
+				states = current == NOTHING ? new BlockState[16 * 16 * 16] : current.states.clone();
+				patched.put(key, states);
+			}
+
+			final ChunkSection section = this.locus.getChunkSection(sx, sy, sz);
+			final BlockState state = section == null ? AIR : section.getBlockState(pos.getX() & 15, pos.getY() & 15, pos.getZ() & 15);
+			states[Section.index(pos.getX() & 15, pos.getY() & 15, pos.getZ() & 15)] = this.filter.test(state) ? state : null;
+		}
+		this.changed.clear();
+
+		for (final Long2ObjectMap.Entry<BlockState[]> e : patched.long2ObjectEntrySet())
+			this.sections.put(e.getLongKey(), createSection(e.getValue()));
+	}
+
+	@Nonnull
+	private Section capture(final int sx, final int sy, final int sz) {
+		final ChunkSection section = this.locus.getChunkSection(sx, sy, sz);
+		if (!SectionPalette.mayContain(section, this.filter))
+			return NOTHING;
+
+		BlockState[] states = null;
+		for (int y = 0; y < 16; y++)
+			for (int z = 0; z < 16; z++)
+				for (int x = 0; x < 16; x++) {
+					final BlockState state = section.getBlockState(x, y, z);
+					if (this.filter.test(state)) {
+						if (states == null)
+							states = new BlockState[16 * 16 * 16];
+						states[Section.index(x, y, z)] = state;
+					}
+				}
+
+		return states == null ? NOTHING : createSection(states);
+	}
+
+	@Nonnull
+	private static Section createSection(@Nonnull final BlockState[] states) {
+		int count = 0;
+		for (final BlockState state : states)
+			if (state != null)
+				count++;
+
+		if (count == 0)
+			return NOTHING;
+
+		final short[] positions = new short[count];
+		for (int i = 0, j = 0; j < count; i++)
+			if (states[i] != null)
+				positions[j++] = (short) i;
+
+		return new Section(states, positions);
+	}
+
+	@Override
+	@Nonnull
+	public BlockState getBlockState(@Nonnull final BlockPos pos) {
+		final int y = pos.getY();
+		if (y < 0 || y > 255)
+			return VOID_AIR;
+		final Section section = this.sections.get(SectionPos.asLong(pos.getX() >> 4, y >> 4, pos.getZ() >> 4));
+		if (section == null || section == NOTHING)
+			return AIR;
+		final BlockState state = section.states[Section.index(pos.getX() & 15, y & 15, pos.getZ() & 15)];
+		return state == null ? AIR : state;
+	}
+
+	@Override
+	@Nonnull
+	public IFluidState getFluidState(@Nonnull final BlockPos pos) {
+		return getBlockState(pos).getFluidState();
+	}
+
+	@Override
+	@Nullable
+	public TileEntity getTileEntity(@Nonnull final BlockPos pos) {
+		return null;
+	}
+
+	/**
+	 * Copy of a chunk section. Block states are indexed by (y << 8) | (z << 4) | x, and positions holds the
+	 * indices of the entries that are not null.
+	 */
+	static final class Section {
+
+		final BlockState[] states;
+		final short[] positions;
+
+		Section(@Nonnull final BlockState[] states, @Nonnull final short[] positions) {
+			this.states = states;
+			this.positions = positions;
+		}
+
+		static int index(final int x, final int y, final int z) {
+			return (y << 8) | (z << 4) | x;
+		}
+	}
+}